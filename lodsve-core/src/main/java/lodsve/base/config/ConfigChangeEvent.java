@@ -0,0 +1,79 @@
+package lodsve.base.config;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 系统配置变化事件,包含新旧两份配置以及变化的key.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 09:40
+ */
+public class ConfigChangeEvent {
+    private final ConfigSnapshot oldSnapshot;
+    private final ConfigSnapshot newSnapshot;
+    private final Set<String> addedKeys;
+    private final Set<String> removedKeys;
+    private final Set<String> modifiedKeys;
+
+    ConfigChangeEvent(ConfigSnapshot oldSnapshot, ConfigSnapshot newSnapshot) {
+        this.oldSnapshot = oldSnapshot;
+        this.newSnapshot = newSnapshot;
+
+        Map<String, String> oldValues = oldSnapshot.getValues();
+        Map<String, String> newValues = newSnapshot.getValues();
+        Set<String> added = new HashSet<>();
+        Set<String> modified = new HashSet<>();
+        for (Map.Entry<String, String> entry : newValues.entrySet()) {
+            String oldValue = oldValues.get(entry.getKey());
+            if (oldValue == null) {
+                added.add(entry.getKey());
+            } else if (!oldValue.equals(entry.getValue())) {
+                modified.add(entry.getKey());
+            }
+        }
+
+        Set<String> removed = new HashSet<>();
+        for (String key : oldValues.keySet()) {
+            if (!newValues.containsKey(key)) {
+                removed.add(key);
+            }
+        }
+
+        this.addedKeys = Collections.unmodifiableSet(added);
+        this.removedKeys = Collections.unmodifiableSet(removed);
+        this.modifiedKeys = Collections.unmodifiableSet(modified);
+    }
+
+    public boolean isEmpty() {
+        return addedKeys.isEmpty() && removedKeys.isEmpty() && modifiedKeys.isEmpty();
+    }
+
+    public ConfigSnapshot getOldSnapshot() {
+        return oldSnapshot;
+    }
+
+    public ConfigSnapshot getNewSnapshot() {
+        return newSnapshot;
+    }
+
+    public Set<String> getAddedKeys() {
+        return addedKeys;
+    }
+
+    public Set<String> getRemovedKeys() {
+        return removedKeys;
+    }
+
+    public Set<String> getModifiedKeys() {
+        return modifiedKeys;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigChangeEvent{version=" + oldSnapshot.getVersion() + "->" + newSnapshot.getVersion() +
+                ", added=" + addedKeys + ", removed=" + removedKeys + ", modified=" + modifiedKeys + "}";
+    }
+}
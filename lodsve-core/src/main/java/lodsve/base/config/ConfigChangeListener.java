@@ -0,0 +1,17 @@
+package lodsve.base.config;
+
+/**
+ * 系统配置变化监听.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 09:40
+ * @see SystemConfig#addChangeListener(ConfigChangeListener)
+ */
+public interface ConfigChangeListener {
+    /**
+     * 配置重新加载并且有变化时调用
+     *
+     * @param event 变化内容
+     */
+    void onChange(ConfigChangeEvent event);
+}
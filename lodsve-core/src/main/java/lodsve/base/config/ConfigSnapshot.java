@@ -0,0 +1,51 @@
+package lodsve.base.config;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import lodsve.base.config.loader.properties.Configuration;
+import lodsve.base.config.loader.properties.PropertiesConfiguration;
+
+/**
+ * 某一时刻的系统配置,创建之后不再修改.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 09:40
+ */
+public class ConfigSnapshot {
+    private final long version;
+    private final Map<String, String> values;
+    private final Configuration configuration;
+
+    ConfigSnapshot(long version, Properties properties) {
+        Properties copy = new Properties();
+        Map<String, String> map = new HashMap<>(properties.size() * 4 / 3 + 1);
+        for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue());
+            map.put(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+        }
+
+        this.version = version;
+        this.values = Collections.unmodifiableMap(map);
+        this.configuration = new PropertiesConfiguration(copy);
+    }
+
+    /**
+     * 版本号,每次重新加载加1
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 所有配置项(不可修改)
+     */
+    public Map<String, String> getValues() {
+        return values;
+    }
+
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+}
@@ -1,8 +1,12 @@
 package lodsve.base.config;
 
+import lodsve.base.config.auto.AutoConfigurationCreator;
+import lodsve.base.config.core.ConfigFileWatcher;
 import lodsve.base.config.loader.properties.Configuration;
 import lodsve.base.config.loader.properties.ConfigurationLoader;
 import lodsve.base.config.loader.properties.PropertiesConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.io.Resource;
 import org.springframework.util.Assert;
 
@@ -10,176 +14,248 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 系统配置文件.
+ * <p/>
+ * 配置保存在不可变的{@link ConfigSnapshot}中,重新加载时整体替换,读取配置时不加锁也不复制.
+ * 配置项{@code lodsve.config.watch=true}时,会监听配置文件目录,文件变化后自动重新加载并通知{@link ConfigChangeListener}.
  *
  * @author sunhao(sunhao.java@gmail.com)
  * @version V1.0, 14-8-17 下午10:29
  */
 public class SystemConfig {
-    private static Configuration configuration;
-    private static Properties properties;
+    private static final Logger logger = LoggerFactory.getLogger(SystemConfig.class);
+    private static final String WATCH_KEY = "lodsve.config.watch";
+
+    private static final List<ConfigChangeListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * 配置只通过快照发布,读取时取一次快照,保证同一次读取看到的是同一个版本
+     */
+    private static volatile ConfigSnapshot snapshot;
 
     static {
         init();
     }
 
     private static void init() {
-        properties = ConfigurationLoader.getConfigProperties();
-        configuration = new PropertiesConfiguration(properties);
+        snapshot = new ConfigSnapshot(0, ConfigurationLoader.getConfigProperties());
+    }
+
+    private static Configuration configuration() {
+        return snapshot.getConfiguration();
+    }
+
+    /**
+     * 根据{@link ConfigurationLoader}中已加载的配置生成新的快照,有变化时通知监听者
+     */
+    public static void refresh() {
+        ConfigChangeEvent event;
+        ConfigSnapshot newSnapshot;
+        synchronized (SystemConfig.class) {
+            ConfigSnapshot oldSnapshot = snapshot;
+            newSnapshot = new ConfigSnapshot(oldSnapshot.getVersion() + 1, ConfigurationLoader.getConfigProperties());
+            snapshot = newSnapshot;
+            event = new ConfigChangeEvent(oldSnapshot, newSnapshot);
+        }
+
+        // 配置变化,之前缓存的解析结果失效
+        AutoConfigurationCreator.clearCache();
+
+        if (newSnapshot.getConfiguration().getBoolean(WATCH_KEY, false)) {
+            ConfigFileWatcher.start();
+        }
+
+        if (event.isEmpty()) {
+            return;
+        }
+
+        logger.info("system config changed: {}", event);
+        for (ConfigChangeListener listener : listeners) {
+            try {
+                listener.onChange(event);
+            } catch (RuntimeException e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 从配置文件目录重新加载配置
+     */
+    public static void reload() throws IOException {
+        ConfigurationLoader.reload();
+        refresh();
+    }
+
+    public static ConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public static void addChangeListener(ConfigChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeChangeListener(ConfigChangeListener listener) {
+        listeners.remove(listener);
     }
 
     public static Configuration subset(String prefix) {
-        return configuration.subset(prefix);
+        return configuration().subset(prefix);
     }
 
     public static boolean containsKey(String key) {
-        return configuration.containsKey(key);
+        return configuration().containsKey(key);
     }
 
     public static Object getProperty(String key) {
-        return configuration.getProperty(key);
+        return configuration().getProperty(key);
     }
 
     public static Set<String> getKeys(String prefix) {
-        return configuration.getKeys(prefix);
+        return configuration().getKeys(prefix);
     }
 
     public static Set<String> getKeys() {
-        return configuration.getKeys();
+        return configuration().getKeys();
     }
 
     public static Properties getProperties(String key) {
-        return configuration.getProperties(key);
+        return configuration().getProperties(key);
     }
 
     public static boolean getBoolean(String key) {
-        return configuration.getBoolean(key);
+        return configuration().getBoolean(key);
     }
 
     public static boolean getBoolean(String key, boolean defaultValue) {
-        return configuration.getBoolean(key, defaultValue);
+        return configuration().getBoolean(key, defaultValue);
     }
 
     public static Boolean getBoolean(String key, Boolean defaultValue) {
-        return configuration.getBoolean(key, defaultValue);
+        return configuration().getBoolean(key, defaultValue);
     }
 
     public static byte getByte(String key) {
-        return configuration.getByte(key);
+        return configuration().getByte(key);
     }
 
     public static byte getByte(String key, byte defaultValue) {
-        return configuration.getByte(key, defaultValue);
+        return configuration().getByte(key, defaultValue);
     }
 
     public static Byte getByte(String key, Byte defaultValue) {
-        return configuration.getByte(key, defaultValue);
+        return configuration().getByte(key, defaultValue);
     }
 
     public static double getDouble(String key) {
-        return configuration.getDouble(key);
+        return configuration().getDouble(key);
     }
 
     public static double getDouble(String key, double defaultValue) {
-        return configuration.getDouble(key, defaultValue);
+        return configuration().getDouble(key, defaultValue);
     }
 
     public static Double getDouble(String key, Double defaultValue) {
-        return configuration.getDouble(key, defaultValue);
+        return configuration().getDouble(key, defaultValue);
     }
 
     public static float getFloat(String key) {
-        return configuration.getFloat(key);
+        return configuration().getFloat(key);
     }
 
     public static float getFloat(String key, float defaultValue) {
-        return configuration.getFloat(key, defaultValue);
+        return configuration().getFloat(key, defaultValue);
     }
 
     public static Float getFloat(String key, Float defaultValue) {
-        return configuration.getFloat(key, defaultValue);
+        return configuration().getFloat(key, defaultValue);
     }
 
     public static int getInt(String key) {
-        return configuration.getInt(key);
+        return configuration().getInt(key);
     }
 
     public static int getInt(String key, int defaultValue) {
-        return configuration.getInt(key, defaultValue);
+        return configuration().getInt(key, defaultValue);
     }
 
     public static Integer getInteger(String key, Integer defaultValue) {
-        return configuration.getInteger(key, defaultValue);
+        return configuration().getInteger(key, defaultValue);
     }
 
     public static long getLong(String key) {
-        return configuration.getLong(key);
+        return configuration().getLong(key);
     }
 
     public static long getLong(String key, long defaultValue) {
-        return configuration.getLong(key, defaultValue);
+        return configuration().getLong(key, defaultValue);
     }
 
     public static Long getLong(String key, Long defaultValue) {
-        return configuration.getLong(key, defaultValue);
+        return configuration().getLong(key, defaultValue);
     }
 
     public static short getShort(String key) {
-        return configuration.getShort(key);
+        return configuration().getShort(key);
     }
 
     public static short getShort(String key, short defaultValue) {
-        return configuration.getShort(key, defaultValue);
+        return configuration().getShort(key, defaultValue);
     }
 
     public static Short getShort(String key, Short defaultValue) {
-        return configuration.getShort(key, defaultValue);
+        return configuration().getShort(key, defaultValue);
     }
 
     public static BigDecimal getBigDecimal(String key) {
-        return configuration.getBigDecimal(key);
+        return configuration().getBigDecimal(key);
     }
 
     public static BigDecimal getBigDecimal(String key, BigDecimal defaultValue) {
-        return configuration.getBigDecimal(key, defaultValue);
+        return configuration().getBigDecimal(key, defaultValue);
     }
 
     public static BigInteger getBigInteger(String key) {
-        return configuration.getBigInteger(key);
+        return configuration().getBigInteger(key);
     }
 
     public static BigInteger getBigInteger(String key, BigInteger defaultValue) {
-        return configuration.getBigInteger(key, defaultValue);
+        return configuration().getBigInteger(key, defaultValue);
     }
 
     public static String getString(String key) {
-        return configuration.getString(key);
+        return configuration().getString(key);
     }
 
     public static String getString(String key, String defaultValue) {
-        return configuration.getString(key, defaultValue);
+        return configuration().getString(key, defaultValue);
     }
 
     public static String[] getStringArray(String key) {
-        return configuration.getStringArray(key);
+        return configuration().getStringArray(key);
     }
 
     public static List<Object> getList(String key) {
-        return configuration.getList(key);
+        return configuration().getList(key);
     }
 
     public static List<Object> getList(String key, List<?> defaultValue) {
-        return configuration.getList(key, defaultValue);
+        return configuration().getList(key, defaultValue);
     }
 
     public static Resource getConfigFile(String fileName) {
         return ConfigurationLoader.getConfigFile(fileName);
     }
 
+    /**
+     * 获取所有配置项
+     *
+     * @return 不可修改的配置项
+     */
     public static Map<String, String> getAllConfigs() {
-        return new HashMap<>((Map) properties);
+        return snapshot.getValues();
     }
 
     public static Configuration getFileConfiguration(String fileName) {
@@ -3,12 +3,15 @@ package lodsve.base.config.auto;
 import java.beans.PropertyDescriptor;
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import lodsve.base.utils.GenericUtils;
 import lodsve.base.utils.PropertyPlaceholderHelper;
 import lodsve.base.utils.StringUtils;
@@ -22,12 +25,15 @@ import org.apache.commons.lang.ArrayUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.SimpleTypeConverter;
+import org.springframework.core.MethodParameter;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.EncodedResource;
 import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * 自动装配生成器.
@@ -38,11 +44,32 @@ import org.springframework.core.io.support.PropertiesLoaderUtils;
 public class AutoConfigurationCreator {
     private static final List<? extends Class<? extends Serializable>> SIMPLE_CLASS = Arrays.asList(Boolean.class, boolean.class, Long.class, long.class,
             Integer.class, int.class, String.class, Double.class, double.class);
+    /**
+     * 配置文件路径 --> 解析后的配置,相同的配置文件只解析一次
+     */
+    private static final ConcurrentMap<String, Configuration> CONFIGURATION_CACHE = new ConcurrentHashMap<>();
+    /**
+     * 配置类 --> 绑定计划,每个类只解析一次属性
+     */
+    private static final ConcurrentMap<Class<?>, BindingPlan> BINDING_PLAN_CACHE = new ConcurrentHashMap<>();
+    /**
+     * 不指定配置文件时使用的key
+     */
+    private static final String DEFAULT_LOCATION_KEY = "";
+
     private ResourceLoader resourceLoader = new DefaultResourceLoader();
 
     private AutoConfigurationCreator() {
     }
 
+    /**
+     * 清空缓存的配置和绑定计划,配置文件变化后调用
+     */
+    public static void clearCache() {
+        CONFIGURATION_CACHE.clear();
+        BINDING_PLAN_CACHE.clear();
+    }
+
     private <T> T generateConfigurationBean(Class<T> clazz, ConfigurationProperties annotation) throws Exception {
         Configuration configuration = loadProp(annotation.locations());
         return generateObject(annotation.prefix(), clazz, configuration);
@@ -50,34 +77,24 @@ public class AutoConfigurationCreator {
 
     private <T> T generateObject(String prefix, Class<T> clazz, Configuration configuration) throws Exception {
         Object object = BeanUtils.instantiate(clazz);
-        BeanWrapper beanWrapper = new BeanWrapperImpl(object);
-
-        PropertyDescriptor[] descriptors = beanWrapper.getPropertyDescriptors();
-        for (PropertyDescriptor descriptor : descriptors) {
-            if (descriptor.getWriteMethod() == null) {
-                continue;
-            }
+        // 和BeanWrapper设值时一样做类型转换(枚举、Class、Resource、数组等默认的PropertyEditor)
+        SimpleTypeConverter typeConverter = new SimpleTypeConverter();
 
-            String name = descriptor.getName();
-            Class<?> type = descriptor.getPropertyType();
-            Method method = descriptor.getReadMethod();
-            TypeDescriptor typeDescriptor = beanWrapper.getPropertyTypeDescriptor(name);
-            Required required = typeDescriptor.getAnnotation(Required.class);
-
-            String key = prefix + "." + name;
+        for (PropertyBinding binding : getBindingPlan(clazz).bindings) {
+            String key = prefix + "." + binding.name;
             Object value;
-            if (isSimpleType(type)) {
-                value = getValueForSimpleType(key, type, configuration);
-            } else if (Map.class.equals(type)) {
-                value = getValueForMap(key, method, configuration);
+            if (binding.simpleType != null) {
+                value = getValueForSimpleType(key, binding.simpleType, configuration);
+            } else if (binding.map) {
+                value = getValueForMap(key, binding, configuration);
             } else {
-                value = generateObject(key, type, configuration);
+                value = generateObject(key, binding.type, configuration);
             }
 
             if (value != null) {
-                beanWrapper.setPropertyValue(name, value);
-            } else if (required != null) {
-                throw new RuntimeException(String.format("property [%s]'s value can't be null!please check your config!", name));
+                binding.writeMethod.invoke(object, typeConverter.convertIfNecessary(value, binding.type, binding.writeParameter));
+            } else if (binding.required) {
+                throw new RuntimeException(String.format("property [%s]'s value can't be null!please check your config!", binding.name));
             }
         }
 
@@ -85,6 +102,18 @@ public class AutoConfigurationCreator {
     }
 
     private Configuration loadProp(String... configLocations) throws Exception {
+        String cacheKey = ArrayUtils.isEmpty(configLocations) ? DEFAULT_LOCATION_KEY : StringUtils.join(configLocations, "\n");
+        Configuration configuration = CONFIGURATION_CACHE.get(cacheKey);
+        if (configuration != null) {
+            return configuration;
+        }
+
+        configuration = parseProp(configLocations);
+        Configuration exist = CONFIGURATION_CACHE.putIfAbsent(cacheKey, configuration);
+        return exist != null ? exist : configuration;
+    }
+
+    private Configuration parseProp(String... configLocations) throws Exception {
         if (ArrayUtils.isEmpty(configLocations)) {
             return new PropertiesConfiguration(ConfigurationLoader.getConfigProperties());
         }
@@ -100,7 +129,18 @@ public class AutoConfigurationCreator {
         return new PropertiesConfiguration(prop);
     }
 
-    private boolean isSimpleType(Class<?> type) {
+    private static BindingPlan getBindingPlan(Class<?> clazz) {
+        BindingPlan plan = BINDING_PLAN_CACHE.get(clazz);
+        if (plan != null) {
+            return plan;
+        }
+
+        plan = new BindingPlan(clazz);
+        BindingPlan exist = BINDING_PLAN_CACHE.putIfAbsent(clazz, plan);
+        return exist != null ? exist : plan;
+    }
+
+    private static boolean isSimpleType(Class<?> type) {
         return SIMPLE_CLASS.contains(type);
     }
 
@@ -124,13 +164,12 @@ public class AutoConfigurationCreator {
         return null;
     }
 
-    private Map<String, Object> getValueForMap(String prefix, Method method, Configuration configuration) throws Exception {
-        if (!Map.class.equals(method.getReturnType()) || !String.class.equals(GenericUtils.getGenericParameter0(method))) {
+    private Map<String, Object> getValueForMap(String prefix, PropertyBinding binding, Configuration configuration) throws Exception {
+        if (binding.mapValueType == null) {
             return null;
         }
 
         Map<String, Object> map = new HashMap<>();
-        Class<?> secondGenericClazz = GenericUtils.getGenericParameter(method, 1);
         Set<String> keys = configuration.subset(prefix).getKeys();
         for (String key : keys) {
             String[] temp = StringUtils.split(key, ".");
@@ -139,7 +178,7 @@ public class AutoConfigurationCreator {
             }
 
             String keyInMap = temp[0];
-            Object object = generateObject(prefix + "." + keyInMap, secondGenericClazz, configuration);
+            Object object = generateObject(prefix + "." + keyInMap, binding.mapValueType, configuration);
             if (object != null)
                 map.put(keyInMap, object);
         }
@@ -147,6 +186,66 @@ public class AutoConfigurationCreator {
         return map;
     }
 
+    /**
+     * 某个配置类需要绑定的属性,只在第一次绑定这个类时解析
+     */
+    private static class BindingPlan {
+        private final List<PropertyBinding> bindings = new ArrayList<>();
+
+        private BindingPlan(Class<?> clazz) {
+            BeanWrapper beanWrapper = new BeanWrapperImpl(clazz);
+
+            PropertyDescriptor[] descriptors = beanWrapper.getPropertyDescriptors();
+            for (PropertyDescriptor descriptor : descriptors) {
+                if (descriptor.getWriteMethod() == null) {
+                    continue;
+                }
+
+                bindings.add(new PropertyBinding(descriptor, beanWrapper.getPropertyTypeDescriptor(descriptor.getName())));
+            }
+        }
+    }
+
+    /**
+     * 单个属性的绑定方式
+     */
+    private static class PropertyBinding {
+        private final String name;
+        private final Class<?> type;
+        private final Method writeMethod;
+        private final MethodParameter writeParameter;
+        private final boolean required;
+        /**
+         * 简单类型时不为空
+         */
+        private final Class<?> simpleType;
+        private final boolean map;
+        /**
+         * Map<String, ?>的value类型,不是这种Map时为空
+         */
+        private final Class<?> mapValueType;
+
+        private PropertyBinding(PropertyDescriptor descriptor, TypeDescriptor typeDescriptor) {
+            this.name = descriptor.getName();
+            this.type = descriptor.getPropertyType();
+            this.writeMethod = descriptor.getWriteMethod();
+            this.writeParameter = new MethodParameter(writeMethod, 0);
+            this.required = typeDescriptor.getAnnotation(Required.class) != null;
+            this.simpleType = isSimpleType(type) ? type : null;
+            this.map = Map.class.equals(type);
+
+            Method readMethod = descriptor.getReadMethod();
+            if (map && readMethod != null && Map.class.equals(readMethod.getReturnType()) &&
+                    String.class.equals(GenericUtils.getGenericParameter0(readMethod))) {
+                this.mapValueType = GenericUtils.getGenericParameter(readMethod, 1);
+            } else {
+                this.mapValueType = null;
+            }
+
+            ReflectionUtils.makeAccessible(writeMethod);
+        }
+    }
+
     public static class Builder<T> {
         private AutoConfigurationCreator creator = new AutoConfigurationCreator();
         private Class<T> clazz;
@@ -0,0 +1,117 @@
+package lodsve.base.config.core;
+
+import lodsve.base.config.SystemConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 监听配置文件目录,properties文件变化时重新加载系统配置.
+ * <p/>
+ * 编辑器保存文件时往往会连续产生多个事件,所以在最后一个事件之后静默一段时间才重新加载.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 09:40
+ */
+public class ConfigFileWatcher implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(ConfigFileWatcher.class);
+    private static final String PROPERTIES_SUFFIX = ".properties";
+    private static final long QUIET_PERIOD = 500;
+
+    private static ConfigFileWatcher instance;
+
+    private final Path directory;
+    private final WatchService watchService;
+
+    private ConfigFileWatcher(Path directory) throws IOException {
+        this.directory = directory;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    /**
+     * 开始监听配置文件目录,重复调用只会启动一次
+     */
+    public static synchronized void start() {
+        if (instance != null) {
+            return;
+        }
+
+        try {
+            instance = new ConfigFileWatcher(Paths.get(InitConfigPath.getParamsRoot()));
+        } catch (IOException e) {
+            logger.error("watch params root error!", e);
+            return;
+        }
+
+        Thread thread = new Thread(instance, "lodsve-config-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("start watching config files under '{}'", instance.directory);
+    }
+
+    public static synchronized void stop() {
+        if (instance == null) {
+            return;
+        }
+
+        try {
+            instance.watchService.close();
+        } catch (IOException e) {
+            logger.warn(e.getMessage(), e);
+        }
+        instance = null;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = isPropertiesChanged(key);
+
+                // 等待连续的修改结束
+                while ((key = watchService.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= isPropertiesChanged(key);
+                }
+
+                if (changed) {
+                    try {
+                        SystemConfig.reload();
+                    } catch (Exception e) {
+                        logger.error("reload config files error!", e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("config watcher is closed!");
+        }
+    }
+
+    private boolean isPropertiesChanged(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (StandardWatchEventKinds.OVERFLOW == event.kind() ||
+                    (context instanceof Path && context.toString().endsWith(PROPERTIES_SUFFIX))) {
+                changed = true;
+            }
+        }
+        key.reset();
+
+        return changed;
+    }
+}
@@ -4,6 +4,7 @@ import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
 import lodsve.base.config.loader.ini.IniLoader;
 import lodsve.base.config.loader.properties.ConfigurationLoader;
+import lodsve.base.utils.HttpClientUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,7 +23,10 @@ public class ParamsHomeListener implements ServletContextListener {
 
     @Override
     public void contextDestroyed(ServletContextEvent servletContextEvent) {
-
+        // 停止监听配置文件的线程,避免应用卸载后线程和WatchService泄漏
+        ConfigFileWatcher.stop();
+        // 关闭共享的http连接池和它的线程
+        HttpClientUtils.shutdown();
     }
 
     @Override
@@ -1,49 +1,104 @@
 package lodsve.base.config.loader.i18n;
 
+import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 扩展的资源绑定.
+ * <p/>
+ * 资源在创建时已经按照"具体语言 -> 语言 -> 默认"的顺序合并好,取值只需要查找一次.
  *
  * @author sunhao(sunhao.java@gmail.com)
  * @version V1.0, 13-4-17 下午10:44
  */
 public class DefaultResourceBundle extends ResourceBundle {
 
-    private Map defaultBundleMap;
-    private Map bundleMap;
-    private Locale locale;
+    private final Map<String, Object> values;
+    private final Locale locale;
+
+    /**
+     * 已经解析过的MessageFormat,key为消息的key
+     */
+    private final ConcurrentMap<String, MessageFormat> messageFormats = new ConcurrentHashMap<>();
 
     public DefaultResourceBundle(Map defaultBundleMap, Map bundleMap, Locale locale) {
-        this.defaultBundleMap = defaultBundleMap;
-        this.bundleMap = bundleMap;
+        this(flatten(defaultBundleMap, bundleMap, locale), locale);
+    }
+
+    DefaultResourceBundle(Map<String, Object> values, Locale locale) {
+        this.values = values;
         this.locale = locale;
     }
 
+    /**
+     * 按照"具体语言 -> 语言 -> 默认"的顺序合并资源
+     *
+     * @param defaultBundleMap 默认资源
+     * @param bundleMap        每个locale对应的资源
+     * @param locale           语言,为空则只取默认资源
+     * @return 合并后不可修改的资源
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> flatten(Map defaultBundleMap, Map bundleMap, Locale locale) {
+        Map<String, Object> values = new HashMap<>(defaultBundleMap);
+        if (locale != null) {
+            if (locale.getCountry().length() > 0) {
+                Map languageMap = (Map) bundleMap.get(new Locale(locale.getLanguage()));
+                if (languageMap != null) {
+                    values.putAll(languageMap);
+                }
+            }
+
+            Map localeMap = (Map) bundleMap.get(locale);
+            if (localeMap != null) {
+                values.putAll(localeMap);
+            }
+        }
+
+        return Collections.unmodifiableMap(values);
+    }
+
     protected Object handleGetObject(String key) {
-        Object result;
-        if (locale == null) {
-            //locale为空,则取中文环境
-            result = this.defaultBundleMap.get(key);
-        } else {
-            //从具体语言中取值
-            Map localeMap = (Map) this.bundleMap.get(locale);
-            if (localeMap == null)
-                localeMap = this.defaultBundleMap;
-
-            result = localeMap != null ? localeMap.get(key) : null;
-
-            if (result == null)
-                //取不到值,则值默认为key
-                result = key;
+        Object result = this.values.get(key);
+        if (result == null && locale != null) {
+            //取不到值,则值默认为key(locale为空,则取中文环境,不做默认)
+            result = key;
         }
 
         return result;
     }
 
+    /**
+     * 获取key对应的MessageFormat,同一个key只解析一次
+     *
+     * @param key 消息的key
+     * @return MessageFormat,取不到值时返回null
+     */
+    public MessageFormat getMessageFormat(String key) {
+        MessageFormat format = this.messageFormats.get(key);
+        if (format != null) {
+            return format;
+        }
+
+        Object message = handleGetObject(key);
+        if (!(message instanceof String)) {
+            return null;
+        }
+
+        format = new MessageFormat((String) message, locale != null ? locale : Locale.getDefault());
+        MessageFormat exist = this.messageFormats.putIfAbsent(key, format);
+
+        return exist != null ? exist : format;
+    }
+
     public Enumeration<String> getKeys() {
-        Set keys = this.defaultBundleMap.keySet();
+        return Collections.enumeration(this.values.keySet());
+    }
 
-        return Collections.enumeration(keys);
+    @Override
+    protected Set<String> handleKeySet() {
+        return this.values.keySet();
     }
 }
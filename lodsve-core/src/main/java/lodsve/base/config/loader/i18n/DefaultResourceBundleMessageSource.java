@@ -5,9 +5,7 @@ import org.springframework.context.support.AbstractMessageSource;
 import org.springframework.util.ClassUtils;
 
 import java.text.MessageFormat;
-import java.util.HashMap;
 import java.util.Locale;
-import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 
@@ -25,27 +23,6 @@ public class DefaultResourceBundleMessageSource extends AbstractMessageSource im
 
     private ClassLoader beanClassLoader = ClassUtils.getDefaultClassLoader();
 
-    /**
-     * Cache to hold loaded ResourceBundles.
-     * This Map is keyed with the bundle basename, which holds a Map that is
-     * keyed with the Locale and in turn holds the ResourceBundle instances.
-     * This allows for very efficient hash lookups, significantly faster
-     * than the ResourceBundle class's own cache.
-     */
-    private final Map cachedResourceBundles = new HashMap();
-
-    /**
-     * Cache to hold already generated MessageFormats.
-     * This Map is keyed with the ResourceBundle, which holds a Map that is
-     * keyed with the message code, which in turn holds a Map that is keyed
-     * with the Locale and holds the MessageFormat values. This allows for
-     * very efficient hash lookups without concatenated keys.
-     *
-     * @see #getMessageFormat
-     */
-    private final Map<ResourceBundle, Map<String, Map<Locale, MessageFormat>>> cachedBundleMessageFormats =
-            new HashMap<ResourceBundle, Map<String, Map<Locale, MessageFormat>>>();
-
     /**
      * Set the ClassLoader to load resource bundles with.
      * <p>Default is the containing BeanFactory's
@@ -106,27 +83,15 @@ public class DefaultResourceBundleMessageSource extends AbstractMessageSource im
 
 
     /**
-     * Return a ResourceBundle for the given basename and code,
-     * fetching already generated MessageFormats from the cache.
+     * Return a ResourceBundle for the given Locale.
      *
      * @param locale the Locale to find the ResourceBundle for
      * @return the resulting ResourceBundle, or <code>null</code> if none
      *         found for the given basename and Locale
      */
     public ResourceBundle getResourceBundle(Locale locale) {
-        synchronized (this.cachedResourceBundles) {
-            ResourceBundle bundle = (ResourceBundle) this.cachedResourceBundles.get(locale);
-            if (bundle != null) {
-                return bundle;
-            }
-
-            bundle = doGetBundle(locale);
-
-            if (bundle != null)
-                this.cachedResourceBundles.put(locale, bundle);
-
-            return bundle;
-        }
+        // ResourceBundleHolder中已经按locale缓存
+        return doGetBundle(locale);
     }
 
     /**
@@ -158,36 +123,13 @@ public class DefaultResourceBundleMessageSource extends AbstractMessageSource im
     protected MessageFormat getMessageFormat(ResourceBundle bundle, String code, Locale locale)
             throws MissingResourceException {
 
-        synchronized (this.cachedBundleMessageFormats) {
-            Map<String, Map<Locale, MessageFormat>> codeMap = this.cachedBundleMessageFormats.get(bundle);
-            Map<Locale, MessageFormat> localeMap = null;
-            if (codeMap != null) {
-                localeMap = codeMap.get(code);
-                if (localeMap != null) {
-                    MessageFormat result = localeMap.get(locale);
-                    if (result != null) {
-                        return result;
-                    }
-                }
-            }
-
-            String msg = getStringOrNull(bundle, code);
-            if (msg != null) {
-                if (codeMap == null) {
-                    codeMap = new HashMap<String, Map<Locale, MessageFormat>>();
-                    this.cachedBundleMessageFormats.put(bundle, codeMap);
-                }
-                if (localeMap == null) {
-                    localeMap = new HashMap<Locale, MessageFormat>();
-                    codeMap.put(code, localeMap);
-                }
-                MessageFormat result = createMessageFormat(msg, locale);
-                localeMap.put(locale, result);
-                return result;
-            }
-
-            return null;
+        if (bundle instanceof DefaultResourceBundle) {
+            // 每个DefaultResourceBundle对应一个locale,自己缓存了MessageFormat
+            return ((DefaultResourceBundle) bundle).getMessageFormat(code);
         }
+
+        String msg = getStringOrNull(bundle, code);
+        return msg != null ? createMessageFormat(msg, locale) : null;
     }
 
     private String getStringOrNull(ResourceBundle bundle, String key) {
@@ -8,6 +8,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import lodsve.base.utils.FileUtils;
 import lodsve.base.utils.StringUtils;
 import org.slf4j.Logger;
@@ -18,6 +20,8 @@ import org.springframework.core.io.support.PropertiesLoaderUtils;
 
 /**
  * 存放消息源的容器.
+ * <p/>
+ * 每次加载资源文件后,会把各个locale的资源按照"具体语言 -> 语言 -> 默认"合并成不可修改的Map,整体替换给读取方使用.
  *
  * @author sunhao(sunhao.java@gmail.com)
  * @version V1.0, 13-4-15 下午11:11
@@ -54,6 +58,16 @@ public class ResourceBundleHolder implements Serializable {
      */
     private Map<Locale, Map> bundledOrderMap = new HashMap<>();
 
+    /**
+     * 最多缓存的locale个数,请求中的locale来自客户端,不能无限缓存
+     */
+    private static final int MAX_CACHED_LOCALES = 256;
+
+    /**
+     * 合并好的资源,加载资源文件后整体替换
+     */
+    private transient volatile Bundles bundles;
+
     /**
      * 根据baseName加资源文件.
      * 本方法会遍历资源文件所在目录的所有以basename开头的文件，并加载该文件内的资源.
@@ -61,7 +75,7 @@ public class ResourceBundleHolder implements Serializable {
      * @param baseFilePath Base file path.
      * @param order        次序.
      */
-    public void loadMessageResource(String baseFilePath, int order) {
+    public synchronized void loadMessageResource(String baseFilePath, int order) {
         if (StringUtils.isEmpty(baseFilePath)) {
             logger.debug("give baseFilePath is null!");
             return;
@@ -108,6 +122,8 @@ public class ResourceBundleHolder implements Serializable {
                     logger.warn("can not get any properties from given file '{}'!", file.getAbsolutePath());
             }
         }
+
+        this.bundles = new Bundles(this.defaultBundleMap, this.bundledMap);
     }
 
     /**
@@ -230,6 +246,61 @@ public class ResourceBundleHolder implements Serializable {
     }
 
     public ResourceBundle getResourceBundle(Locale locale) {
-        return new DefaultResourceBundle(this.defaultBundleMap, this.bundledMap, locale);
+        Bundles current = this.bundles;
+        if (current == null) {
+            synchronized (this) {
+                if (this.bundles == null) {
+                    this.bundles = new Bundles(this.defaultBundleMap, this.bundledMap);
+                }
+                current = this.bundles;
+            }
+        }
+
+        return current.getBundle(locale);
+    }
+
+    /**
+     * 某一次加载完成后的资源快照,创建后不再修改
+     */
+    private static class Bundles {
+        private final DefaultResourceBundle defaultBundle;
+        private final Map<String, Object> defaults;
+        private final Map<Locale, Map<String, Object>> flattened = new HashMap<>();
+        private final ConcurrentMap<Locale, DefaultResourceBundle> cache = new ConcurrentHashMap<>();
+
+        Bundles(Map defaultBundleMap, Map<Locale, Map> bundledMap) {
+            this.defaults = DefaultResourceBundle.flatten(defaultBundleMap, bundledMap, null);
+            this.defaultBundle = new DefaultResourceBundle(this.defaults, null);
+
+            for (Locale locale : bundledMap.keySet()) {
+                this.flattened.put(locale, DefaultResourceBundle.flatten(defaultBundleMap, bundledMap, locale));
+            }
+        }
+
+        DefaultResourceBundle getBundle(Locale locale) {
+            if (locale == null) {
+                return this.defaultBundle;
+            }
+
+            DefaultResourceBundle bundle = this.cache.get(locale);
+            if (bundle != null) {
+                return bundle;
+            }
+
+            Map<String, Object> values = this.flattened.get(locale);
+            if (values == null && locale.getCountry().length() > 0) {
+                values = this.flattened.get(new Locale(locale.getLanguage()));
+            }
+            bundle = new DefaultResourceBundle(values != null ? values : this.defaults, locale);
+
+            if (this.cache.size() < MAX_CACHED_LOCALES) {
+                DefaultResourceBundle exist = this.cache.putIfAbsent(locale, bundle);
+                if (exist != null) {
+                    bundle = exist;
+                }
+            }
+
+            return bundle;
+        }
     }
 }
@@ -3,6 +3,7 @@ package lodsve.base.config.loader.properties;
 import java.io.File;
 import java.io.IOException;
 import java.util.Properties;
+import lodsve.base.config.SystemConfig;
 import lodsve.base.config.core.InitConfigPath;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
@@ -19,7 +20,7 @@ import org.springframework.core.io.support.ResourcePatternResolver;
  * @version V1.0, 14-8-17 下午9:44
  */
 public class ConfigurationLoader {
-    private static Properties prop = new Properties();
+    private static volatile Properties prop = new Properties();
 
     private ConfigurationLoader() {
     }
@@ -54,6 +55,20 @@ public class ConfigurationLoader {
     }
 
     public static void init() throws Exception {
+        loadParamsRoot(prop);
+        SystemConfig.refresh();
+    }
+
+    /**
+     * 重新加载配置文件目录下的配置,加载完成后整体替换,不修改之前返回的Properties
+     */
+    public static void reload() throws IOException {
+        Properties fresh = new Properties();
+        loadParamsRoot(fresh);
+        prop = fresh;
+    }
+
+    private static void loadParamsRoot(Properties prop) throws IOException {
         ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
         Resource[] resources = resolver.getResources("file:" + InitConfigPath.getParamsRoot() + "/*.properties");
 
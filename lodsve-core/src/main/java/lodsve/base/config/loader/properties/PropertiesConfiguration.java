@@ -1,10 +1,13 @@
 package lodsve.base.config.loader.properties;
 
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Properties;
 import java.util.Set;
 
@@ -13,6 +16,12 @@ public class PropertiesConfiguration extends AbstractConfiguration {
 	
 	private Map<String, Object> store = new HashMap<String, Object>();
 
+	/**
+	 * Sorted keys of the store, used to answer prefix queries with a binary
+	 * search instead of a full scan. Rebuilt lazily after the store changes.
+	 */
+	private volatile String[] sortedKeys;
+
 	public PropertiesConfiguration(Properties properties) {
 		load(properties);
 	}
@@ -29,6 +38,21 @@ public class PropertiesConfiguration extends AbstractConfiguration {
 		return store.keySet();
 	}
 
+	/**
+	 * Returns a read-only view of the keys equal to {@code prefix} or starting
+	 * with {@code prefix + "."}. The view is backed by the sorted key index,
+	 * so no keys are copied.
+	 */
+	@Override
+	public Set<String> getKeys(String prefix) {
+		String[] keys = getSortedKeys();
+		// '/' is the character right after '.', so [prefix., prefix/) holds all child keys
+		int from = lowerBound(keys, prefix + ".");
+		int to = lowerBound(keys, prefix + "/");
+
+		return new PrefixKeySet(keys, from, to, store.containsKey(prefix) ? prefix : null);
+	}
+
 	@Override
 	public boolean containsKey(String key) {
 		return store.containsKey(key);
@@ -51,6 +75,7 @@ public class PropertiesConfiguration extends AbstractConfiguration {
 
 		if (previousValue == null) {
 			store.put(key, value);
+			sortedKeys = null;
 		} else if (previousValue instanceof List) {
 			// safe to case because we have created the lists ourselves
 			@SuppressWarnings("unchecked")
@@ -67,4 +92,82 @@ public class PropertiesConfiguration extends AbstractConfiguration {
 			store.put(key, list);
 		}
 	}
+
+	private String[] getSortedKeys() {
+		String[] keys = sortedKeys;
+		if (keys == null) {
+			keys = store.keySet().toArray(new String[store.size()]);
+			Arrays.sort(keys);
+			sortedKeys = keys;
+		}
+
+		return keys;
+	}
+
+	private static int lowerBound(String[] keys, String key) {
+		int index = Arrays.binarySearch(keys, key);
+		return index >= 0 ? index : -index - 1;
+	}
+
+	/**
+	 * A view over {@code keys[from, to)} plus an optional exact-match key.
+	 */
+	private static class PrefixKeySet extends AbstractSet<String> {
+		private final String[] keys;
+		private final int from;
+		private final int to;
+		private final String exactKey;
+
+		private PrefixKeySet(String[] keys, int from, int to, String exactKey) {
+			this.keys = keys;
+			this.from = from;
+			this.to = to;
+			this.exactKey = exactKey;
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			return new Iterator<String>() {
+				private boolean exactReturned = exactKey == null;
+				private int index = from;
+
+				@Override
+				public boolean hasNext() {
+					return !exactReturned || index < to;
+				}
+
+				@Override
+				public String next() {
+					if (!exactReturned) {
+						exactReturned = true;
+						return exactKey;
+					}
+					if (index >= to) {
+						throw new NoSuchElementException();
+					}
+
+					return keys[index++];
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return (exactKey == null ? 0 : 1) + (to - from);
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof String)) {
+				return false;
+			}
+
+			return o.equals(exactKey) || Arrays.binarySearch(keys, from, to, o) >= 0;
+		}
+	}
 }
@@ -17,7 +17,8 @@
 
 package lodsve.base.config.loader.properties;
 
-import java.util.HashSet;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -172,13 +173,43 @@ class SubsetConfiguration extends AbstractConfiguration {
 		return getSubKeys(parent.getKeys(prefix));
 	}
 
-	private Set<String> getSubKeys(Set<String> keys) {
-		Set<String> subKeys = new HashSet<String>();
-		for (String key : keys) {
-			subKeys.add(getChildKey(key));
-		}
-		
-		return subKeys;
+	/**
+	 * Returns a read-only view translating the parent keys to keys of this
+	 * subset on the fly, so no key set is copied.
+	 */
+	private Set<String> getSubKeys(final Set<String> keys) {
+		return new AbstractSet<String>() {
+			@Override
+			public Iterator<String> iterator() {
+				final Iterator<String> it = keys.iterator();
+				return new Iterator<String>() {
+					@Override
+					public boolean hasNext() {
+						return it.hasNext();
+					}
+
+					@Override
+					public String next() {
+						return getChildKey(it.next());
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return keys.size();
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				return o instanceof String && keys.contains(getParentKey((String) o));
+			}
+		};
 	}
 	
 	/**
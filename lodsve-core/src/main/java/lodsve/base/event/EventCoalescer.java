@@ -0,0 +1,110 @@
+package lodsve.base.event;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lodsve.base.event.dispatcher.EventThreadFactory;
+import lodsve.base.event.module.BaseEvent;
+
+/**
+ * 事件合并器.
+ * <p/>
+ * 带有合并key的事件的异步监听器不会立即执行,而是在时间窗口结束时执行;窗口内相同类型、相同合并key的事件只保留最后一个.
+ * 同步监听器不经过合并,由发布事件的线程立即执行.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 18:05
+ */
+class EventCoalescer {
+    private final EventExecutor executor;
+    private final long window;
+    private final ConcurrentMap<EventKey, BaseEvent> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean shutdown;
+
+    /**
+     * 被合并掉的事件数
+     */
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    EventCoalescer(EventExecutor executor, long window) {
+        this.executor = executor;
+        this.window = window;
+        this.scheduler = window > 0 ? Executors.newSingleThreadScheduledExecutor(new EventThreadFactory("lodsve-event-coalescer-", null)) : null;
+    }
+
+    /**
+     * 事件是否需要合并
+     *
+     * @param event 事件
+     * @return 开启了合并并且事件有合并key
+     */
+    boolean isCoalescable(BaseEvent event) {
+        return scheduler != null && event.getCoalesceKey() != null;
+    }
+
+    /**
+     * 尝试合并事件的异步执行
+     *
+     * @param event 事件
+     * @return 事件是否由合并器接管(接管后会在窗口结束时执行),已经停止合并时返回false
+     */
+    boolean offer(BaseEvent event) {
+        if (!isCoalescable(event) || shutdown) {
+            return false;
+        }
+
+        final EventKey key = new EventKey(event.getClass(), event.getCoalesceKey());
+        if (pending.put(key, event) != null) {
+            coalescedCount.incrementAndGet();
+            return true;
+        }
+
+        try {
+            scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flush(key);
+                }
+            }, window, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            //检查shutdown之后合并器刚好停止,没有被shutdown()执行掉的事件交给调用方直接执行
+            return !pending.remove(key, event);
+        }
+        return true;
+    }
+
+    private void flush(EventKey key) {
+        BaseEvent latest = pending.remove(key);
+        if (latest != null) {
+            executor.executeAsync(latest);
+        }
+    }
+
+    /**
+     * 停止合并,并立即执行所有还在窗口中的事件
+     */
+    void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+
+        shutdown = true;
+        scheduler.shutdownNow();
+        for (EventKey key : pending.keySet()) {
+            flush(key);
+        }
+    }
+
+    long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+}
@@ -1,14 +1,23 @@
 package lodsve.base.event;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import lodsve.base.event.dispatcher.EventDispatcher;
+import lodsve.base.event.dispatcher.ListenerInvoker;
+import lodsve.base.event.dispatcher.PartitionedEventDispatcher;
+import lodsve.base.event.dispatcher.PooledEventDispatcher;
+import lodsve.base.event.dispatcher.RingBufferEventDispatcher;
 import lodsve.base.event.listener.AbstractEventListener;
+import lodsve.base.event.listener.BatchEventListener;
+import lodsve.base.event.metrics.EventMetricsCollector;
 import lodsve.base.event.module.BaseEvent;
+import lodsve.base.event.module.EventBatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /**
@@ -19,23 +28,74 @@ import org.springframework.stereotype.Component;
  * @createTime 13-4-27 上午4:57
  */
 @Component
-public class EventExecutor {
+public class EventExecutor implements InitializingBean, DisposableBean {
     /**
      * Logger.
      */
     private static final Logger logger = LoggerFactory.getLogger(EventExecutor.class);
 
     /**
-     * 同步事件Map.
+     * 监听器注册表.
      */
-    private final Map<Class<? extends BaseEvent>, List<AbstractEventListener>> syncEventListeners = new HashMap<>();
+    private final EventListenerRegistry registry = new EventListenerRegistry();
+
+    @Autowired
+    private EventProperties eventProperties;
+
+    /**
+     * 异步事件分发器
+     */
+    private EventDispatcher dispatcher;
+
+    /**
+     * 事件合并器
+     */
+    private EventCoalescer coalescer;
 
     /**
-     * 异步事件Map.
+     * 事件统计,未开启时为null
      */
-    private final Map<Class<? extends BaseEvent>, List<AbstractEventListener>> asyncEventListeners = new HashMap<>();
+    private EventMetricsCollector metrics;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        ListenerInvoker invoker = new ListenerInvoker() {
+            @Override
+            public void invoke(AbstractEventListener[] listeners, BaseEvent event, long dispatchTime) {
+                if (metrics != null) {
+                    metrics.recordQueueWait(eventType(event), System.nanoTime() - dispatchTime);
+                }
+                execute(listeners, event);
+            }
+        };
+
+        if (eventProperties.isMetricsEnabled()) {
+            metrics = new EventMetricsCollector();
+            metrics.registerMBean();
+        }
 
-    private final Object REGISTER_LOCK_OBJECT = new Object();
+        if (EventProperties.MODE_PARTITIONED.equalsIgnoreCase(eventProperties.getMode())) {
+            dispatcher = new PartitionedEventDispatcher(eventProperties.getPool(), eventProperties.getPartition(), invoker);
+        } else if (EventProperties.MODE_RING_BUFFER.equalsIgnoreCase(eventProperties.getMode())) {
+            dispatcher = new RingBufferEventDispatcher(eventProperties.getPool(), eventProperties.getRingBuffer(), invoker);
+        } else {
+            dispatcher = new PooledEventDispatcher(eventProperties.getPool(), invoker);
+        }
+
+        coalescer = new EventCoalescer(this, eventProperties.getCoalesceWindow());
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        //执行还在合并窗口中的事件
+        coalescer.shutdown();
+        //等待队列中的异步事件执行完成
+        dispatcher.shutdown();
+
+        if (metrics != null) {
+            metrics.unregisterMBean();
+        }
+    }
 
     /**
      * 注册监听服务
@@ -45,46 +105,127 @@ public class EventExecutor {
      * @param isSync     是否是同步执行
      */
     public void registerListener(List<Class<? extends BaseEvent>> eventTypes, AbstractEventListener listener, boolean isSync) {
-        synchronized (REGISTER_LOCK_OBJECT) {
-            if (eventTypes == null || eventTypes.isEmpty()) {
-                logger.debug("module types is null!");
-                return;
-            }
+        if (eventTypes == null || eventTypes.isEmpty()) {
+            logger.debug("module types is null!");
+            return;
+        }
 
-            logger.debug("regist listener '{}' for module type '{}'!", listener, eventTypes);
+        logger.debug("regist listener '{}' for module type '{}'!", listener, eventTypes);
+        registry.register(eventTypes, listener, isSync);
+    }
+
+    /**
+     * 执行事件,注册在事件父类或接口上的监听器同样会被执行
+     *
+     * @param event
+     */
+    public void executeEvent(BaseEvent event) throws RuntimeException {
+        if (coalescer.isCoalescable(event)) {
+            executeCoalescable(event);
+            return;
+        }
 
-            Map<Class<? extends BaseEvent>, List<AbstractEventListener>> eventListeners = isSync ? syncEventListeners : asyncEventListeners;
-            for (Iterator<Class<? extends BaseEvent>> it = eventTypes.iterator(); it.hasNext(); ) {
-                Class<? extends BaseEvent> eventType = it.next();
-                if (eventType == null)
-                    continue;
+        executeImmediately(event);
+    }
 
-                List<AbstractEventListener> listeners = eventListeners.get(eventType);
-                if (listeners == null) {
-                    listeners = new ArrayList<>();
+    /**
+     * 批量执行事件,连续的、事件类型和分区key都相同的事件合并成一组一起交给监听器,保持事件提交的顺序
+     *
+     * @param events 事件
+     */
+    public void executeEvents(Collection<? extends BaseEvent> events) throws RuntimeException {
+        EventKey runKey = null;
+        List<BaseEvent> run = new ArrayList<>();
+        for (BaseEvent event : events) {
+            if (event == null) {
+                continue;
+            }
+            if (coalescer.isCoalescable(event)) {
+                //先执行前面的事件,保证同步监听器按提交顺序执行
+                if (!run.isEmpty()) {
+                    executeRun(runKey, run);
+                    run = new ArrayList<>();
                 }
+                runKey = null;
+                executeCoalescable(event);
+                continue;
+            }
 
-                listeners.add(listener);
-                eventListeners.put(eventType, listeners);
+            EventKey key = new EventKey(event.getClass(), event.getPartitionKey());
+            if (runKey != null && !runKey.equals(key)) {
+                executeRun(runKey, run);
+                run = new ArrayList<>();
             }
+            runKey = key;
+            run.add(event);
+        }
+
+        if (!run.isEmpty()) {
+            executeRun(runKey, run);
+        }
+    }
+
+    private void executeRun(EventKey key, List<BaseEvent> run) {
+        if (run.size() == 1) {
+            executeImmediately(run.get(0));
+            return;
         }
+
+        executeImmediately(key.getEventType(), new EventBatch(run));
     }
 
     /**
-     * 执行事件
+     * 需要合并的事件:同步监听器在当前线程立即执行,只有异步监听器交给合并器
      *
-     * @param event
+     * @param event 事件
      */
-    public void executeEvent(BaseEvent event) throws RuntimeException {
+    private void executeCoalescable(BaseEvent event) {
+        EventListenerRegistry.ResolvedListeners listeners = registry.resolve(event.getClass());
+
+        AbstractEventListener[] syncListeners = listeners.getSyncListeners();
+        if (syncListeners.length > 0) {
+            execute(syncListeners, event);
+        }
+
+        AbstractEventListener[] asyncListeners = listeners.getAsyncListeners();
+        if (asyncListeners.length > 0 && !coalescer.offer(event)) {
+            executeAsyncEvent(asyncListeners, event);
+        }
+    }
+
+    /**
+     * 合并窗口结束后执行事件的异步监听器
+     *
+     * @param event 事件
+     */
+    void executeAsync(BaseEvent event) {
+        AbstractEventListener[] asyncListeners = registry.resolve(event.getClass()).getAsyncListeners();
+        if (asyncListeners.length > 0) {
+            executeAsyncEvent(asyncListeners, event);
+        }
+    }
+
+    /**
+     * 不经过合并,直接执行事件
+     *
+     * @param event 事件
+     */
+    private void executeImmediately(BaseEvent event) {
+        executeImmediately(event.getClass(), event);
+    }
+
+    private void executeImmediately(Class<?> eventType, BaseEvent event) {
+        EventListenerRegistry.ResolvedListeners listeners = registry.resolve(eventType);
+
         //1.先执行同步事件
-        List<AbstractEventListener> syncListeners = syncEventListeners.get(event.getClass());
-        if (syncListeners != null && !syncListeners.isEmpty()) {
+        AbstractEventListener[] syncListeners = listeners.getSyncListeners();
+        if (syncListeners.length > 0) {
             execute(syncListeners, event);
         }
 
         //2.执行异步事件
-        List<AbstractEventListener> asyncListeners = asyncEventListeners.get(event.getClass());
-        if (asyncListeners != null && !asyncListeners.isEmpty()) {
+        AbstractEventListener[] asyncListeners = listeners.getAsyncListeners();
+        if (asyncListeners.length > 0) {
             executeAsyncEvent(asyncListeners, event);
         }
     }
@@ -95,25 +236,95 @@ public class EventExecutor {
      * @param asyncListeners 异步事件监听
      * @param event          异步事件
      */
-    private void executeAsyncEvent(final List<AbstractEventListener> asyncListeners, final BaseEvent event) throws RuntimeException {
-        new Thread() {
-            public void run() {
-                execute(asyncListeners, event);
-            }
-        }.start();
+    private void executeAsyncEvent(AbstractEventListener[] asyncListeners, BaseEvent event) throws RuntimeException {
+        dispatcher.dispatch(event, asyncListeners);
+    }
+
+    /**
+     * 获取异步事件分发器,可以用来查看队列深度、拒绝次数等
+     *
+     * @return 异步事件分发器
+     */
+    public EventDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * 获取被合并掉(没有执行)的事件数
+     *
+     * @return 被合并掉的事件数
+     */
+    public long getCoalescedCount() {
+        return coalescer.getCoalescedCount();
+    }
+
+    /**
+     * 获取事件统计,未开启统计时返回null
+     *
+     * @return 事件统计
+     */
+    public EventMetricsCollector getMetrics() {
+        return metrics;
+    }
+
+    private void execute(AbstractEventListener[] listeners, BaseEvent event) {
+        if (event instanceof EventBatch) {
+            executeBatch(listeners, ((EventBatch) event).getEvents());
+            return;
+        }
+
+        for (AbstractEventListener listener : listeners) {
+            execute(listener, event);
+        }
     }
 
-    private void execute(List<AbstractEventListener> listeners, BaseEvent event) {
-        for (Iterator<AbstractEventListener> it = listeners.iterator(); it.hasNext(); ) {
-            AbstractEventListener listener = it.next();
+    private void executeBatch(AbstractEventListener[] listeners, List<BaseEvent> events) {
+        for (AbstractEventListener listener : listeners) {
+            if (!(listener instanceof BatchEventListener)) {
+                for (BaseEvent event : events) {
+                    execute(listener, event);
+                }
+                continue;
+            }
 
-            logger.debug("execute module '{}' use listener '{}'!", event, listener);
-            //执行
+            logger.debug("execute {} modules use batch listener '{}'!", events.size(), listener);
+            long start = metrics != null ? System.nanoTime() : 0;
+            boolean error = false;
             try {
-                listener.handleEvent(event);
+                ((BatchEventListener) listener).handleEvents(events);
             } catch (RuntimeException e) {
+                error = true;
                 logger.error(e.getMessage(), e);
+            } finally {
+                if (metrics != null) {
+                    metrics.recordExecution(events.get(0).getClass(), listener.getClass(), System.nanoTime() - start, events.size(), error);
+                }
+            }
+        }
+    }
+
+    private void execute(AbstractEventListener listener, BaseEvent event) {
+        logger.debug("execute module '{}' use listener '{}'!", event, listener);
+        long start = metrics != null ? System.nanoTime() : 0;
+        boolean error = false;
+        //执行
+        try {
+            listener.handleEvent(event);
+        } catch (RuntimeException e) {
+            error = true;
+            logger.error(e.getMessage(), e);
+        } finally {
+            if (metrics != null) {
+                metrics.recordExecution(event.getClass(), listener.getClass(), System.nanoTime() - start, 1, error);
             }
         }
     }
+
+    private static Class<?> eventType(BaseEvent event) {
+        if (event instanceof EventBatch) {
+            return ((EventBatch) event).getEvents().get(0).getClass();
+        }
+
+        return event.getClass();
+    }
 }
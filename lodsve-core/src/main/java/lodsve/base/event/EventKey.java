@@ -0,0 +1,39 @@
+package lodsve.base.event;
+
+/**
+ * 事件类型 + key组成的复合key,用于批量发布时分组以及合并事件.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 18:05
+ */
+class EventKey {
+    private final Class<?> eventType;
+    private final Object key;
+
+    EventKey(Class<?> eventType, Object key) {
+        this.eventType = eventType;
+        this.key = key;
+    }
+
+    Class<?> getEventType() {
+        return eventType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EventKey)) {
+            return false;
+        }
+
+        EventKey that = (EventKey) o;
+        return eventType.equals(that.eventType) && (key == null ? that.key == null : key.equals(that.key));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * eventType.hashCode() + (key == null ? 0 : key.hashCode());
+    }
+}
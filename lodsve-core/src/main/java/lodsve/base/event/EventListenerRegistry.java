@@ -0,0 +1,164 @@
+package lodsve.base.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lodsve.base.event.listener.AbstractEventListener;
+
+/**
+ * 事件监听器注册表.
+ * <p/>
+ * 写时复制:每次注册都会生成一份新的不可变快照,并通过volatile发布.
+ * 读取时只需读取一次当前快照,按照具体的事件类型解析出监听器数组(包含注册在父类、接口上的监听器),
+ * 解析结果缓存在快照中,执行事件时不需要加锁,也不需要遍历map.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 14:10
+ */
+public class EventListenerRegistry {
+    private static final AbstractEventListener[] EMPTY_LISTENERS = new AbstractEventListener[0];
+
+    private final Object registerLock = new Object();
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.<Class<?>, List<AbstractEventListener>>emptyMap(),
+            Collections.<Class<?>, List<AbstractEventListener>>emptyMap());
+
+    /**
+     * 注册监听器
+     *
+     * @param eventTypes 事件类型
+     * @param listener   监听器
+     * @param isSync     是否是同步执行
+     */
+    public void register(List<? extends Class<?>> eventTypes, AbstractEventListener listener, boolean isSync) {
+        synchronized (registerLock) {
+            Snapshot current = snapshot;
+            Map<Class<?>, List<AbstractEventListener>> sync = current.syncListeners;
+            Map<Class<?>, List<AbstractEventListener>> async = current.asyncListeners;
+
+            Map<Class<?>, List<AbstractEventListener>> copy = copy(isSync ? sync : async);
+            for (Class<?> eventType : eventTypes) {
+                if (eventType == null) {
+                    continue;
+                }
+
+                List<AbstractEventListener> listeners = copy.get(eventType);
+                if (listeners == null) {
+                    listeners = new ArrayList<>();
+                    copy.put(eventType, listeners);
+                }
+                listeners.add(listener);
+            }
+
+            snapshot = isSync ? new Snapshot(copy, async) : new Snapshot(sync, copy);
+        }
+    }
+
+    /**
+     * 获取某个具体事件类型需要执行的监听器
+     *
+     * @param eventType 事件类型
+     * @return 同步和异步监听器
+     */
+    public ResolvedListeners resolve(Class<?> eventType) {
+        return snapshot.resolve(eventType);
+    }
+
+    private static Map<Class<?>, List<AbstractEventListener>> copy(Map<Class<?>, List<AbstractEventListener>> source) {
+        Map<Class<?>, List<AbstractEventListener>> copy = new HashMap<>(source.size() + 1);
+        for (Map.Entry<Class<?>, List<AbstractEventListener>> entry : source.entrySet()) {
+            copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+
+        return copy;
+    }
+
+    /**
+     * 某个时刻的注册信息,创建之后不再修改
+     */
+    private static class Snapshot {
+        private final Map<Class<?>, List<AbstractEventListener>> syncListeners;
+        private final Map<Class<?>, List<AbstractEventListener>> asyncListeners;
+        /**
+         * 具体事件类型 --> 解析后的监听器
+         */
+        private final ConcurrentMap<Class<?>, ResolvedListeners> resolved = new ConcurrentHashMap<>();
+
+        private Snapshot(Map<Class<?>, List<AbstractEventListener>> syncListeners, Map<Class<?>, List<AbstractEventListener>> asyncListeners) {
+            this.syncListeners = syncListeners;
+            this.asyncListeners = asyncListeners;
+        }
+
+        private ResolvedListeners resolve(Class<?> eventType) {
+            ResolvedListeners listeners = resolved.get(eventType);
+            if (listeners != null) {
+                return listeners;
+            }
+
+            Set<Class<?>> types = new LinkedHashSet<>();
+            collectTypes(eventType, types);
+
+            listeners = new ResolvedListeners(collect(types, syncListeners), collect(types, asyncListeners));
+            ResolvedListeners exist = resolved.putIfAbsent(eventType, listeners);
+            return exist != null ? exist : listeners;
+        }
+
+        /**
+         * 由具体到抽象收集事件类型:自身、父类(直到Object之前)、所有接口
+         */
+        private static void collectTypes(Class<?> type, Set<Class<?>> types) {
+            if (type == null || Object.class.equals(type) || !types.add(type)) {
+                return;
+            }
+
+            collectTypes(type.getSuperclass(), types);
+            for (Class<?> interfaceType : type.getInterfaces()) {
+                collectTypes(interfaceType, types);
+            }
+        }
+
+        private static AbstractEventListener[] collect(Set<Class<?>> types, Map<Class<?>, List<AbstractEventListener>> registered) {
+            if (registered.isEmpty()) {
+                return EMPTY_LISTENERS;
+            }
+
+            // 同一个监听器注册在多个父类型上时,只执行一次
+            Set<AbstractEventListener> listeners = new LinkedHashSet<>();
+            for (Class<?> type : types) {
+                List<AbstractEventListener> list = registered.get(type);
+                if (list != null) {
+                    listeners.addAll(list);
+                }
+            }
+
+            return listeners.isEmpty() ? EMPTY_LISTENERS : listeners.toArray(new AbstractEventListener[listeners.size()]);
+        }
+    }
+
+    /**
+     * 某个具体事件类型解析后的监听器
+     */
+    public static class ResolvedListeners {
+        private final AbstractEventListener[] syncListeners;
+        private final AbstractEventListener[] asyncListeners;
+
+        private ResolvedListeners(AbstractEventListener[] syncListeners, AbstractEventListener[] asyncListeners) {
+            this.syncListeners = syncListeners;
+            this.asyncListeners = asyncListeners;
+        }
+
+        public AbstractEventListener[] getSyncListeners() {
+            return syncListeners;
+        }
+
+        public AbstractEventListener[] getAsyncListeners() {
+            return asyncListeners;
+        }
+    }
+}
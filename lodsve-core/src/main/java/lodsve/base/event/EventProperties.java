@@ -0,0 +1,266 @@
+package lodsve.base.event;
+
+import lodsve.base.config.auto.annotations.ConfigurationProperties;
+
+/**
+ * 事件分发配置.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 10:30
+ */
+@ConfigurationProperties(prefix = "lodsve.event")
+public class EventProperties {
+    public static final String MODE_POOLED = "pooled";
+    public static final String MODE_PARTITIONED = "partitioned";
+    public static final String MODE_RING_BUFFER = "ring-buffer";
+
+    /**
+     * 异步事件执行模式: pooled(线程池)/partitioned(按分区key有序执行)/ring-buffer(环形队列)
+     */
+    private String mode = MODE_POOLED;
+    /**
+     * 合并事件的时间窗口(毫秒),小于等于0时不合并
+     */
+    private long coalesceWindow = 500;
+    /**
+     * 是否统计事件执行次数、耗时等,统计数据可以通过JMX查看
+     */
+    private boolean metricsEnabled = true;
+    /**
+     * 异步事件执行线程池配置
+     */
+    private Pool pool = new Pool();
+    /**
+     * 分区模式配置,线程类型、拒绝策略、等待时间等沿用pool中的配置
+     */
+    private Partition partition = new Partition();
+    /**
+     * 环形队列模式配置,线程类型、等待时间沿用pool中的配置
+     */
+    private RingBuffer ringBuffer = new RingBuffer();
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public long getCoalesceWindow() {
+        return coalesceWindow;
+    }
+
+    public void setCoalesceWindow(long coalesceWindow) {
+        this.coalesceWindow = coalesceWindow;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public void setPool(Pool pool) {
+        this.pool = pool;
+    }
+
+    public Partition getPartition() {
+        return partition;
+    }
+
+    public void setPartition(Partition partition) {
+        this.partition = partition;
+    }
+
+    public RingBuffer getRingBuffer() {
+        return ringBuffer;
+    }
+
+    public void setRingBuffer(RingBuffer ringBuffer) {
+        this.ringBuffer = ringBuffer;
+    }
+
+    public static class Pool {
+        /**
+         * 线程类型: platform(普通线程)/virtual(虚拟线程,需要运行在支持虚拟线程的JDK上,否则退化为普通线程)
+         */
+        private String threadType = "platform";
+        /**
+         * 核心线程数
+         */
+        private int corePoolSize = Runtime.getRuntime().availableProcessors();
+        /**
+         * 最大线程数
+         */
+        private int maxPoolSize = Runtime.getRuntime().availableProcessors() * 2;
+        /**
+         * 等待队列容量
+         */
+        private int queueCapacity = 10000;
+        /**
+         * 空闲线程存活时间(秒)
+         */
+        private int keepAliveSeconds = 60;
+        /**
+         * 队列满时的拒绝策略: caller-runs/drop-oldest/block
+         */
+        private String rejectPolicy = "caller-runs";
+        /**
+         * 拒绝策略为block时,等待队列空闲的最长时间(毫秒)
+         */
+        private long blockTimeout = 1000;
+        /**
+         * 容器关闭时等待队列中事件执行完成的最长时间(秒)
+         */
+        private int awaitTerminationSeconds = 30;
+
+        public String getThreadType() {
+            return threadType;
+        }
+
+        public void setThreadType(String threadType) {
+            this.threadType = threadType;
+        }
+
+        public int getCorePoolSize() {
+            return corePoolSize;
+        }
+
+        public void setCorePoolSize(int corePoolSize) {
+            this.corePoolSize = corePoolSize;
+        }
+
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+
+        public void setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getKeepAliveSeconds() {
+            return keepAliveSeconds;
+        }
+
+        public void setKeepAliveSeconds(int keepAliveSeconds) {
+            this.keepAliveSeconds = keepAliveSeconds;
+        }
+
+        public String getRejectPolicy() {
+            return rejectPolicy;
+        }
+
+        public void setRejectPolicy(String rejectPolicy) {
+            this.rejectPolicy = rejectPolicy;
+        }
+
+        public long getBlockTimeout() {
+            return blockTimeout;
+        }
+
+        public void setBlockTimeout(long blockTimeout) {
+            this.blockTimeout = blockTimeout;
+        }
+
+        public int getAwaitTerminationSeconds() {
+            return awaitTerminationSeconds;
+        }
+
+        public void setAwaitTerminationSeconds(int awaitTerminationSeconds) {
+            this.awaitTerminationSeconds = awaitTerminationSeconds;
+        }
+    }
+
+    public static class Partition {
+        /**
+         * 通道数量,每个通道一个线程
+         */
+        private int lanes = Runtime.getRuntime().availableProcessors();
+        /**
+         * 每个通道的队列容量
+         */
+        private int laneCapacity = 1024;
+
+        public int getLanes() {
+            return lanes;
+        }
+
+        public void setLanes(int lanes) {
+            this.lanes = lanes;
+        }
+
+        public int getLaneCapacity() {
+            return laneCapacity;
+        }
+
+        public void setLaneCapacity(int laneCapacity) {
+            this.laneCapacity = laneCapacity;
+        }
+    }
+
+    public static class RingBuffer {
+        /**
+         * 槽位数量,会向上取整为2的幂
+         */
+        private int bufferSize = 16384;
+        /**
+         * 生产者类型: single(只有一个线程发布事件)/multi(多个线程发布事件)
+         */
+        private String producerType = "multi";
+        /**
+         * 等待策略: busy-spin/yield/park
+         */
+        private String waitStrategy = "park";
+        /**
+         * 消费者线程数
+         */
+        private int consumers = 1;
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public String getProducerType() {
+            return producerType;
+        }
+
+        public void setProducerType(String producerType) {
+            this.producerType = producerType;
+        }
+
+        public String getWaitStrategy() {
+            return waitStrategy;
+        }
+
+        public void setWaitStrategy(String waitStrategy) {
+            this.waitStrategy = waitStrategy;
+        }
+
+        public int getConsumers() {
+            return consumers;
+        }
+
+        public void setConsumers(int consumers) {
+            this.consumers = consumers;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package lodsve.base.event;
 
+import java.util.Collection;
 import lodsve.base.event.module.BaseEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,4 +37,19 @@ public class EventPublisher {
         eventExecutor.executeEvent(baseEvent);
         logger.debug("****************execute module '{}' stop!", baseEvent);
     }
+
+    /**
+     * 批量发布事件.同一类型的事件会一起交给监听器,实现了{@link lodsve.base.event.listener.BatchEventListener}的监听器一次处理一批
+     *
+     * @param events 事件
+     */
+    public void publishAll(Collection<? extends BaseEvent> events) {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+
+        logger.debug("****************execute {} modules start!", events.size());
+        eventExecutor.executeEvents(events);
+        logger.debug("****************execute {} modules stop!", events.size());
+    }
 }
@@ -0,0 +1,25 @@
+package lodsve.base.event.dispatcher;
+
+import lodsve.base.event.listener.AbstractEventListener;
+import lodsve.base.event.module.BaseEvent;
+
+/**
+ * 异步事件分发器.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 10:30
+ */
+public interface EventDispatcher {
+    /**
+     * 将事件交给监听器异步执行
+     *
+     * @param event     事件
+     * @param listeners 需要执行的监听器
+     */
+    void dispatch(BaseEvent event, AbstractEventListener[] listeners);
+
+    /**
+     * 停止接收新事件,并在给定时间内等待已提交的事件执行完成
+     */
+    void shutdown();
+}
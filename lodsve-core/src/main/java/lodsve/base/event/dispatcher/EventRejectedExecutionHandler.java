@@ -0,0 +1,88 @@
+package lodsve.base.event.dispatcher;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 按照{@link RejectPolicy}处理队列已满的事件,并记录拒绝、丢弃次数.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 15:20
+ */
+public class EventRejectedExecutionHandler implements RejectedExecutionHandler {
+    private static final Logger logger = LoggerFactory.getLogger(EventRejectedExecutionHandler.class);
+
+    private final RejectPolicy rejectPolicy;
+    private final long blockTimeout;
+
+    /**
+     * 队列满被拒绝的次数(不论最终是否被执行)
+     */
+    private final AtomicLong rejectedCount = new AtomicLong();
+    /**
+     * 被丢弃的事件数
+     */
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public EventRejectedExecutionHandler(RejectPolicy rejectPolicy, long blockTimeout) {
+        this.rejectPolicy = rejectPolicy;
+        this.blockTimeout = blockTimeout;
+    }
+
+    @Override
+    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+        rejectedCount.incrementAndGet();
+
+        if (executor.isShutdown()) {
+            droppedCount.incrementAndGet();
+            logger.warn("event dispatcher is shutdown, event is dropped!");
+            return;
+        }
+
+        switch (rejectPolicy) {
+            case DROP_OLDEST:
+                if (executor.getQueue().poll() != null) {
+                    droppedCount.incrementAndGet();
+                }
+                executor.execute(r);
+                break;
+            case BLOCK:
+                try {
+                    if (!executor.getQueue().offer(r, blockTimeout, TimeUnit.MILLISECONDS)) {
+                        droppedCount.incrementAndGet();
+                        logger.warn("event queue is full, wait {}ms timeout, event is dropped!", blockTimeout);
+                    }
+                } catch (InterruptedException e) {
+                    droppedCount.incrementAndGet();
+                    Thread.currentThread().interrupt();
+                    logger.warn("interrupted while waiting for event queue, event is dropped!");
+                }
+                break;
+            case CALLER_RUNS:
+            default:
+                r.run();
+                break;
+        }
+    }
+
+    /**
+     * 记录关闭时未执行而被丢弃的事件
+     *
+     * @param count 丢弃的数量
+     */
+    public void addDropped(int count) {
+        droppedCount.addAndGet(count);
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+}
@@ -0,0 +1,56 @@
+package lodsve.base.event.dispatcher;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 事件执行线程工厂,支持普通线程和虚拟线程.
+ * <p/>
+ * 虚拟线程通过反射创建,运行在不支持虚拟线程的JDK上时退化为普通的daemon线程.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 10:30
+ */
+public class EventThreadFactory implements ThreadFactory {
+    private static final Logger logger = LoggerFactory.getLogger(EventThreadFactory.class);
+
+    public static final String THREAD_TYPE_VIRTUAL = "virtual";
+
+    private final String namePrefix;
+    private final AtomicInteger threadNumber = new AtomicInteger(1);
+    private final ThreadFactory virtualThreadFactory;
+
+    public EventThreadFactory(String namePrefix, String threadType) {
+        this.namePrefix = namePrefix;
+        this.virtualThreadFactory = THREAD_TYPE_VIRTUAL.equalsIgnoreCase(threadType) ? createVirtualThreadFactory(namePrefix) : null;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        if (virtualThreadFactory != null) {
+            return virtualThreadFactory.newThread(r);
+        }
+
+        Thread thread = new Thread(r, namePrefix + threadNumber.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static ThreadFactory createVirtualThreadFactory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+
+            Method name = builderClass.getMethod("name", String.class, long.class);
+            builder = name.invoke(builder, namePrefix, 1L);
+
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (Exception e) {
+            logger.warn("virtual thread is not supported by current jvm, use platform thread instead!");
+            return null;
+        }
+    }
+}
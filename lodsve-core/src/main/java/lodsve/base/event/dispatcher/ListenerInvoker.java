@@ -0,0 +1,21 @@
+package lodsve.base.event.dispatcher;
+
+import lodsve.base.event.listener.AbstractEventListener;
+import lodsve.base.event.module.BaseEvent;
+
+/**
+ * 分发器在工作线程中回调,真正执行监听器.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 10:30
+ */
+public interface ListenerInvoker {
+    /**
+     * 执行监听器
+     *
+     * @param listeners    监听器
+     * @param event        事件
+     * @param dispatchTime 事件交给分发器的时间({@link System#nanoTime()})
+     */
+    void invoke(AbstractEventListener[] listeners, BaseEvent event, long dispatchTime);
+}
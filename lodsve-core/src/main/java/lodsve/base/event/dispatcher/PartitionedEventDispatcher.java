@@ -0,0 +1,192 @@
+package lodsve.base.event.dispatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lodsve.base.event.EventProperties;
+import lodsve.base.event.listener.AbstractEventListener;
+import lodsve.base.event.module.BaseEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 按分区key有序执行的异步事件分发器.
+ * <p/>
+ * 共有N个通道,每个通道由一个线程按顺序执行.分区key相同的事件总是进入同一个通道,因此严格按照发布顺序执行;
+ * 不同key的事件分散在各个通道中并行执行.没有分区key的事件轮流分配到各个通道.
+ * <p/>
+ * 由发布线程直接执行会打乱同一分区内的顺序,所以拒绝策略为caller-runs时按block处理.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 15:20
+ */
+public class PartitionedEventDispatcher implements EventDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedEventDispatcher.class);
+
+    private final ListenerInvoker invoker;
+    private final Lane[] lanes;
+    private final int awaitTerminationSeconds;
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    public PartitionedEventDispatcher(EventProperties.Pool pool, EventProperties.Partition partition, ListenerInvoker invoker) {
+        this.invoker = invoker;
+        this.awaitTerminationSeconds = pool.getAwaitTerminationSeconds();
+
+        RejectPolicy rejectPolicy = RejectPolicy.parse(pool.getRejectPolicy());
+        if (RejectPolicy.CALLER_RUNS == rejectPolicy) {
+            rejectPolicy = RejectPolicy.BLOCK;
+        }
+
+        int laneCount = Math.max(1, partition.getLanes());
+        int laneCapacity = Math.max(1, partition.getLaneCapacity());
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            EventRejectedExecutionHandler handler = new EventRejectedExecutionHandler(rejectPolicy, pool.getBlockTimeout());
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(laneCapacity),
+                    new EventThreadFactory("lodsve-event-lane-" + i + "-", pool.getThreadType()), handler);
+            lanes[i] = new Lane(executor, handler);
+        }
+    }
+
+    @Override
+    public void dispatch(final BaseEvent event, final AbstractEventListener[] listeners) {
+        Lane lane = lanes[laneIndex(event.getPartitionKey())];
+        lane.submittedCount.incrementAndGet();
+        final long dispatchTime = System.nanoTime();
+        lane.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                invoker.invoke(listeners, event, dispatchTime);
+            }
+        });
+    }
+
+    private int laneIndex(Object partitionKey) {
+        if (partitionKey == null) {
+            return (roundRobin.getAndIncrement() & Integer.MAX_VALUE) % lanes.length;
+        }
+
+        int h = partitionKey.hashCode();
+        // 扰动,避免连续的id集中在少数通道上
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return (h & Integer.MAX_VALUE) % lanes.length;
+    }
+
+    @Override
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.executor.shutdown();
+        }
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(awaitTerminationSeconds);
+        try {
+            for (Lane lane : lanes) {
+                long remain = Math.max(0, deadline - System.currentTimeMillis());
+                if (!lane.executor.awaitTermination(remain, TimeUnit.MILLISECONDS)) {
+                    List<Runnable> dropped = lane.executor.shutdownNow();
+                    lane.handler.addDropped(dropped.size());
+                    logger.warn("event lane shutdown timeout, {} events are dropped!", dropped.size());
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Lane lane : lanes) {
+                lane.executor.shutdownNow();
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * 获取各个通道当前的统计信息,用来根据CPU核数调整通道数量
+     *
+     * @return 各个通道的统计信息
+     */
+    public List<LaneMetrics> getLaneMetrics() {
+        List<LaneMetrics> metrics = new ArrayList<>(lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            Lane lane = lanes[i];
+            metrics.add(new LaneMetrics(i, lane.executor.getQueue().size(), lane.executor.getQueue().remainingCapacity(),
+                    lane.submittedCount.get(), lane.executor.getCompletedTaskCount(), lane.handler.getRejectedCount(), lane.handler.getDroppedCount()));
+        }
+
+        return metrics;
+    }
+
+    private static class Lane {
+        private final ThreadPoolExecutor executor;
+        private final EventRejectedExecutionHandler handler;
+        private final AtomicLong submittedCount = new AtomicLong();
+
+        private Lane(ThreadPoolExecutor executor, EventRejectedExecutionHandler handler) {
+            this.executor = executor;
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * 通道统计信息
+     */
+    public static class LaneMetrics {
+        private final int index;
+        private final int queueSize;
+        private final int remainingCapacity;
+        private final long submittedCount;
+        private final long completedCount;
+        private final long rejectedCount;
+        private final long droppedCount;
+
+        public LaneMetrics(int index, int queueSize, int remainingCapacity, long submittedCount, long completedCount, long rejectedCount, long droppedCount) {
+            this.index = index;
+            this.queueSize = queueSize;
+            this.remainingCapacity = remainingCapacity;
+            this.submittedCount = submittedCount;
+            this.completedCount = completedCount;
+            this.rejectedCount = rejectedCount;
+            this.droppedCount = droppedCount;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public int getRemainingCapacity() {
+            return remainingCapacity;
+        }
+
+        public long getSubmittedCount() {
+            return submittedCount;
+        }
+
+        public long getCompletedCount() {
+            return completedCount;
+        }
+
+        public long getRejectedCount() {
+            return rejectedCount;
+        }
+
+        public long getDroppedCount() {
+            return droppedCount;
+        }
+
+        @Override
+        public String toString() {
+            return "LaneMetrics{index=" + index + ", queueSize=" + queueSize + ", remainingCapacity=" + remainingCapacity +
+                    ", submittedCount=" + submittedCount + ", completedCount=" + completedCount +
+                    ", rejectedCount=" + rejectedCount + ", droppedCount=" + droppedCount + "}";
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package lodsve.base.event.dispatcher;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lodsve.base.event.EventProperties;
+import lodsve.base.event.listener.AbstractEventListener;
+import lodsve.base.event.module.BaseEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 基于有界线程池的异步事件分发器.
+ * <p/>
+ * 队列满时按照配置的{@link RejectPolicy}处理,并记录拒绝次数.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 10:30
+ */
+public class PooledEventDispatcher implements EventDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(PooledEventDispatcher.class);
+
+    private final ListenerInvoker invoker;
+    private final ThreadPoolExecutor executor;
+    private final EventRejectedExecutionHandler rejectedHandler;
+    private final int awaitTerminationSeconds;
+
+    /**
+     * 提交的事件数
+     */
+    private final AtomicLong submittedCount = new AtomicLong();
+
+    public PooledEventDispatcher(EventProperties.Pool pool, ListenerInvoker invoker) {
+        this.invoker = invoker;
+        this.rejectedHandler = new EventRejectedExecutionHandler(RejectPolicy.parse(pool.getRejectPolicy()), pool.getBlockTimeout());
+        this.awaitTerminationSeconds = pool.getAwaitTerminationSeconds();
+
+        int corePoolSize = Math.max(1, pool.getCorePoolSize());
+        int maxPoolSize = Math.max(corePoolSize, pool.getMaxPoolSize());
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(Math.max(1, pool.getQueueCapacity()));
+
+        this.executor = new ThreadPoolExecutor(corePoolSize, maxPoolSize, pool.getKeepAliveSeconds(), TimeUnit.SECONDS, queue,
+                new EventThreadFactory("lodsve-event-", pool.getThreadType()), rejectedHandler);
+    }
+
+    @Override
+    public void dispatch(final BaseEvent event, final AbstractEventListener[] listeners) {
+        submittedCount.incrementAndGet();
+        final long dispatchTime = System.nanoTime();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                invoker.invoke(listeners, event, dispatchTime);
+            }
+        });
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(awaitTerminationSeconds, TimeUnit.SECONDS)) {
+                List<Runnable> remain = executor.shutdownNow();
+                rejectedHandler.addDropped(remain.size());
+                logger.warn("event dispatcher shutdown timeout, {} events are dropped!", remain.size());
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public long getCompletedCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    public long getRejectedCount() {
+        return rejectedHandler.getRejectedCount();
+    }
+
+    public long getDroppedCount() {
+        return rejectedHandler.getDroppedCount();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getPoolSize() {
+        return executor.getPoolSize();
+    }
+}
@@ -0,0 +1,32 @@
+package lodsve.base.event.dispatcher;
+
+import lodsve.base.utils.StringUtils;
+
+/**
+ * 队列满时的拒绝策略.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 10:30
+ */
+public enum RejectPolicy {
+    /**
+     * 由发布事件的线程直接执行
+     */
+    CALLER_RUNS,
+    /**
+     * 丢弃队列中最早的事件,再次尝试提交
+     */
+    DROP_OLDEST,
+    /**
+     * 阻塞发布线程,直到队列有空位或超时,超时后丢弃
+     */
+    BLOCK;
+
+    public static RejectPolicy parse(String policy) {
+        if (StringUtils.isBlank(policy)) {
+            return CALLER_RUNS;
+        }
+
+        return valueOf(StringUtils.replace(policy.trim(), "-", "_").toUpperCase());
+    }
+}
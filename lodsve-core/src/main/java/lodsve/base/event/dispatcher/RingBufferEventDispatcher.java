@@ -0,0 +1,302 @@
+package lodsve.base.event.dispatcher;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import lodsve.base.event.EventProperties;
+import lodsve.base.event.listener.AbstractEventListener;
+import lodsve.base.event.module.BaseEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 基于环形队列的高吞吐异步事件分发器(参考Disruptor).
+ * <p/>
+ * 槽位在启动时预先分配,发布事件只是占用一个序号并写入槽位,不会创建任务对象,也没有锁.
+ * 消费者每次醒来会一次性处理所有已发布的事件.有多个消费者时,按照序号取模分摊事件.
+ * <p/>
+ * 生产者类型为single时,只允许一个线程发布事件;多个线程发布事件时必须使用multi.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 16:40
+ */
+public class RingBufferEventDispatcher implements EventDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(RingBufferEventDispatcher.class);
+
+    public static final String PRODUCER_SINGLE = "single";
+
+    private final ListenerInvoker invoker;
+    private final WaitStrategy waitStrategy;
+    private final boolean singleProducer;
+    private final int awaitTerminationSeconds;
+
+    private final int bufferSize;
+    private final int mask;
+    private final int indexShift;
+    private final Slot[] slots;
+    /**
+     * 多生产者时,记录每个槽位已发布的轮次
+     */
+    private final AtomicIntegerArray availableBuffer;
+
+    /**
+     * 已占用的最大序号
+     */
+    private final Sequence claimSequence = new Sequence();
+    /**
+     * 单生产者时,已发布的最大序号
+     */
+    private final Sequence cursor = new Sequence();
+    private final Consumer[] consumers;
+    private final Thread[] consumerThreads;
+
+    private volatile boolean running = true;
+    /**
+     * 正在发布事件(已通过running检查,还未发布完)的生产者个数
+     */
+    private final AtomicInteger publishing = new AtomicInteger();
+    /**
+     * 关闭后所有生产者都已发布完,占用的序号不会再增加,消费者处理完所有序号后退出
+     */
+    private volatile boolean sealed;
+
+    public RingBufferEventDispatcher(EventProperties.Pool pool, EventProperties.RingBuffer ringBuffer, ListenerInvoker invoker) {
+        this.invoker = invoker;
+        this.waitStrategy = WaitStrategy.parse(ringBuffer.getWaitStrategy());
+        this.singleProducer = PRODUCER_SINGLE.equalsIgnoreCase(ringBuffer.getProducerType());
+        this.awaitTerminationSeconds = pool.getAwaitTerminationSeconds();
+
+        this.bufferSize = ceilingPowerOfTwo(Math.max(2, ringBuffer.getBufferSize()));
+        this.mask = bufferSize - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(bufferSize);
+        this.slots = new Slot[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            slots[i] = new Slot();
+        }
+        this.availableBuffer = new AtomicIntegerArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            availableBuffer.set(i, -1);
+        }
+
+        int consumerCount = Math.max(1, ringBuffer.getConsumers());
+        EventThreadFactory threadFactory = new EventThreadFactory("lodsve-event-ring-", pool.getThreadType());
+        this.consumers = new Consumer[consumerCount];
+        this.consumerThreads = new Thread[consumerCount];
+        for (int i = 0; i < consumerCount; i++) {
+            consumers[i] = new Consumer(i, consumerCount);
+            consumerThreads[i] = threadFactory.newThread(consumers[i]);
+        }
+        for (Thread thread : consumerThreads) {
+            thread.start();
+        }
+    }
+
+    @Override
+    public void dispatch(BaseEvent event, AbstractEventListener[] listeners) {
+        // 先登记再检查running,shutdown()先置running再等待登记数为0,所以通过检查的生产者一定会在消费者退出前发布完
+        publishing.incrementAndGet();
+        try {
+            if (!running) {
+                logger.warn("event dispatcher is shutdown, event '{}' is dropped!", event);
+                return;
+            }
+
+            long sequence = next();
+            Slot slot = slots[(int) sequence & mask];
+            slot.event = event;
+            slot.listeners = listeners;
+            slot.dispatchTime = System.nanoTime();
+            publish(sequence);
+        } finally {
+            publishing.decrementAndGet();
+        }
+    }
+
+    /**
+     * 占用下一个序号,环形队列满时挂起等待消费者(与消费者的等待策略无关,避免生产者和消费者抢占CPU)
+     */
+    private long next() {
+        long next = singleProducer ? claimSequence.incrementPlain() : claimSequence.incrementAndGet();
+        long wrapPoint = next - bufferSize;
+
+        while (wrapPoint > minimumConsumerSequence()) {
+            LockSupport.parkNanos(1L);
+        }
+
+        return next;
+    }
+
+    private void publish(long sequence) {
+        if (singleProducer) {
+            cursor.lazySet(sequence);
+        } else {
+            availableBuffer.lazySet((int) sequence & mask, (int) (sequence >>> indexShift));
+        }
+    }
+
+    /**
+     * 获取从lowerBound开始连续发布的最大序号
+     */
+    private long highestPublishedSequence(long lowerBound) {
+        if (singleProducer) {
+            return cursor.get();
+        }
+
+        long upperBound = claimSequence.get();
+        for (long sequence = lowerBound; sequence <= upperBound; sequence++) {
+            if (availableBuffer.get((int) sequence & mask) != (int) (sequence >>> indexShift)) {
+                return sequence - 1;
+            }
+        }
+
+        return upperBound;
+    }
+
+    private long minimumConsumerSequence() {
+        long minimum = Long.MAX_VALUE;
+        for (Consumer consumer : consumers) {
+            minimum = Math.min(minimum, consumer.sequence.get());
+        }
+
+        return minimum;
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(awaitTerminationSeconds);
+        // 等待已通过检查的生产者发布完(消费者还在运行,队列满时生产者也能继续)
+        while (publishing.get() > 0 && System.currentTimeMillis() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        sealed = true;
+
+        try {
+            for (Thread thread : consumerThreads) {
+                thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        long remain = claimSequence.get() - minimumConsumerSequence();
+        if (remain > 0) {
+            logger.warn("event dispatcher shutdown timeout, {} events are dropped!", remain);
+            for (Thread thread : consumerThreads) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * 已发布(或正在发布)的事件数
+     */
+    public long getPublishedCount() {
+        return claimSequence.get() + 1;
+    }
+
+    /**
+     * 环形队列中还未处理的事件数
+     */
+    public long getBacklog() {
+        return claimSequence.get() - minimumConsumerSequence();
+    }
+
+    public long getRemainingCapacity() {
+        return bufferSize - getBacklog();
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        return 1 << (32 - Integer.numberOfLeadingZeros(value - 1));
+    }
+
+    /**
+     * 预先分配的槽位
+     */
+    private static class Slot {
+        private BaseEvent event;
+        private AbstractEventListener[] listeners;
+        private long dispatchTime;
+    }
+
+    /**
+     * 填充缓存行的序号,避免伪共享
+     */
+    @SuppressWarnings("unused")
+    private static class Sequence extends AtomicLong {
+        private static final long serialVersionUID = -2830565961054744670L;
+
+        private long p1, p2, p3, p4, p5, p6, p7;
+        private long plain = -1;
+
+        private Sequence() {
+            super(-1);
+        }
+
+        /**
+         * 单生产者时序号只会被一个线程修改,不需要CAS
+         */
+        private long incrementPlain() {
+            plain++;
+            lazySet(plain);
+            return plain;
+        }
+    }
+
+    private class Consumer implements Runnable {
+        private final int index;
+        private final int consumerCount;
+        private final Sequence sequence = new Sequence();
+
+        private Consumer(int index, int consumerCount) {
+            this.index = index;
+            this.consumerCount = consumerCount;
+        }
+
+        @Override
+        public void run() {
+            long nextSequence = sequence.get() + 1;
+            int counter = 0;
+
+            while (!Thread.currentThread().isInterrupted()) {
+                long available = highestPublishedSequence(nextSequence);
+                if (available < nextSequence) {
+                    if (sealed && nextSequence > claimSequence.get()) {
+                        // 已关闭,并且已处理完所有占用的序号
+                        break;
+                    }
+                    waitStrategy.idle(counter++);
+                    continue;
+                }
+
+                // 一次处理完所有已发布的事件
+                for (long current = nextSequence; current <= available; current++) {
+                    if (current % consumerCount != index) {
+                        continue;
+                    }
+
+                    Slot slot = slots[(int) current & mask];
+                    try {
+                        invoker.invoke(slot.listeners, slot.event, slot.dispatchTime);
+                    } catch (Throwable e) {
+                        logger.error(e.getMessage(), e);
+                    } finally {
+                        slot.event = null;
+                        slot.listeners = null;
+                    }
+                }
+
+                sequence.lazySet(available);
+                nextSequence = available + 1;
+                counter = 0;
+            }
+        }
+    }
+}
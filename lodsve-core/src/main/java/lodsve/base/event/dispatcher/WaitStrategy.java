@@ -0,0 +1,66 @@
+package lodsve.base.event.dispatcher;
+
+import java.util.concurrent.locks.LockSupport;
+import lodsve.base.utils.StringUtils;
+
+/**
+ * 环形队列中消费者没有事件可处理时的等待策略.
+ * <p/>
+ * 用CPU换延迟:busy-spin延迟最低但会占满一个核;yield次之;park最省CPU,延迟也最高.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 16:40
+ */
+public enum WaitStrategy {
+    /**
+     * 一直自旋
+     */
+    BUSY_SPIN {
+        @Override
+        public void idle(int counter) {
+            // 什么都不做,继续自旋
+        }
+    },
+    /**
+     * 先自旋,再让出CPU
+     */
+    YIELD {
+        @Override
+        public void idle(int counter) {
+            if (counter > SPIN_TRIES) {
+                Thread.yield();
+            }
+        }
+    },
+    /**
+     * 先自旋,再让出CPU,最后挂起一小段时间
+     */
+    PARK {
+        @Override
+        public void idle(int counter) {
+            if (counter > SPIN_TRIES * 2) {
+                LockSupport.parkNanos(PARK_NANOS);
+            } else if (counter > SPIN_TRIES) {
+                Thread.yield();
+            }
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = 50 * 1000L;
+
+    /**
+     * 等待一次
+     *
+     * @param counter 连续等待的次数
+     */
+    public abstract void idle(int counter);
+
+    public static WaitStrategy parse(String strategy) {
+        if (StringUtils.isBlank(strategy)) {
+            return PARK;
+        }
+
+        return valueOf(StringUtils.replace(strategy.trim(), "-", "_").toUpperCase());
+    }
+}
@@ -0,0 +1,23 @@
+package lodsve.base.event.listener;
+
+import java.util.List;
+import lodsve.base.event.module.BaseEvent;
+
+/**
+ * 批量事件监听.
+ * <p/>
+ * {@link AbstractEventListener}的子类实现这个接口后,通过{@link lodsve.base.event.EventPublisher#publishAll}
+ * 批量发布的同一类型事件会一次性交给{@link #handleEvents(List)}处理;没有实现这个接口的监听器仍然逐个处理.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 18:05
+ */
+public interface BatchEventListener {
+    /**
+     * 批量处理同一类型的事件
+     *
+     * @param events 事件,按照发布顺序排列
+     * @throws RuntimeException
+     */
+    void handleEvents(List<BaseEvent> events) throws RuntimeException;
+}
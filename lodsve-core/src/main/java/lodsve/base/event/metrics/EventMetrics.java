@@ -0,0 +1,63 @@
+package lodsve.base.event.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 某个事件类型或某个监听器的统计数据.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 20:15
+ */
+public class EventMetrics {
+    private final String name;
+    /**
+     * 执行次数
+     */
+    private final AtomicLong count = new AtomicLong();
+    /**
+     * 抛出异常的次数
+     */
+    private final AtomicLong errorCount = new AtomicLong();
+    /**
+     * 执行耗时
+     */
+    private final LatencyHistogram latency = new LatencyHistogram();
+    /**
+     * 异步事件在队列中的等待时间
+     */
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+
+    public EventMetrics(String name) {
+        this.name = name;
+    }
+
+    public void recordExecution(long nanos, int events, boolean error) {
+        count.addAndGet(events);
+        latency.record(nanos);
+        if (error) {
+            errorCount.incrementAndGet();
+        }
+    }
+
+    public void recordQueueWait(long nanos) {
+        queueWait.record(nanos);
+    }
+
+    public void reset() {
+        count.set(0);
+        errorCount.set(0);
+        latency.reset();
+        queueWait.reset();
+    }
+
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(name, count.get(), errorCount.get(),
+                micros(latency.getMean()), micros(latency.getPercentile(0.5)), micros(latency.getPercentile(0.99)), micros(latency.getMax()),
+                micros(queueWait.getPercentile(0.5)), micros(queueWait.getPercentile(0.99)), micros(queueWait.getMax()));
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
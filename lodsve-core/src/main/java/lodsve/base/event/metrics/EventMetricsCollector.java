@@ -0,0 +1,143 @@
+package lodsve.base.event.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 事件总线统计,按事件类型和监听器分别记录执行次数、异常次数、耗时和异步队列等待时间.
+ * <p/>
+ * 可以直接调用获取统计数据,也可以通过JMX(lodsve.event:type=EventMetrics,name=实例id)查看,
+ * 同一个JVM中的多个应用(或多个context)各自注册自己的MBean.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 20:15
+ */
+public class EventMetricsCollector implements EventMetricsMXBean {
+    private static final Logger logger = LoggerFactory.getLogger(EventMetricsCollector.class);
+
+    public static final String OBJECT_NAME = "lodsve.event:type=EventMetrics";
+
+    /**
+     * 本实例注册的MBean名称,未注册时为null
+     */
+    private volatile ObjectName registeredName;
+    private final ConcurrentMap<Class<?>, EventMetrics> eventTypeMetrics = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, EventMetrics> listenerMetrics = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次监听器执行
+     *
+     * @param eventType 事件类型
+     * @param listener  监听器类型
+     * @param nanos     耗时(纳秒)
+     * @param events    处理的事件数(批量执行时大于1)
+     * @param error     是否抛出异常
+     */
+    public void recordExecution(Class<?> eventType, Class<?> listener, long nanos, int events, boolean error) {
+        metrics(eventTypeMetrics, eventType).recordExecution(nanos, events, error);
+        metrics(listenerMetrics, listener).recordExecution(nanos, events, error);
+    }
+
+    /**
+     * 记录异步事件在队列中的等待时间
+     *
+     * @param eventType 事件类型
+     * @param nanos     等待时间(纳秒)
+     */
+    public void recordQueueWait(Class<?> eventType, long nanos) {
+        metrics(eventTypeMetrics, eventType).recordQueueWait(nanos);
+    }
+
+    @Override
+    public List<MetricsSnapshot> getEventTypeMetrics() {
+        return snapshot(eventTypeMetrics);
+    }
+
+    @Override
+    public List<MetricsSnapshot> getListenerMetrics() {
+        return snapshot(listenerMetrics);
+    }
+
+    @Override
+    public void reset() {
+        for (EventMetrics metrics : eventTypeMetrics.values()) {
+            metrics.reset();
+        }
+        for (EventMetrics metrics : listenerMetrics.values()) {
+            metrics.reset();
+        }
+    }
+
+    /**
+     * 以lodsve.event:type=EventMetrics,name=实例id注册MBean
+     */
+    public synchronized void registerMBean() {
+        if (registeredName != null) {
+            return;
+        }
+
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME + ",name=" + Integer.toHexString(System.identityHashCode(this)));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            registeredName = name;
+        } catch (Exception e) {
+            logger.warn("register event metrics mbean error!", e);
+        }
+    }
+
+    /**
+     * 只注销本实例注册的MBean
+     */
+    public synchronized void unregisterMBean() {
+        if (registeredName == null) {
+            return;
+        }
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(registeredName)) {
+                server.unregisterMBean(registeredName);
+            }
+        } catch (Exception e) {
+            logger.warn("unregister event metrics mbean error!", e);
+        } finally {
+            registeredName = null;
+        }
+    }
+
+    /**
+     * 获取本实例注册的MBean名称
+     *
+     * @return 未注册时返回null
+     */
+    public ObjectName getObjectName() {
+        return registeredName;
+    }
+
+    private static EventMetrics metrics(ConcurrentMap<Class<?>, EventMetrics> container, Class<?> key) {
+        EventMetrics metrics = container.get(key);
+        if (metrics != null) {
+            return metrics;
+        }
+
+        metrics = new EventMetrics(key.getName());
+        EventMetrics exist = container.putIfAbsent(key, metrics);
+        return exist != null ? exist : metrics;
+    }
+
+    private static List<MetricsSnapshot> snapshot(ConcurrentMap<Class<?>, EventMetrics> container) {
+        List<MetricsSnapshot> snapshots = new ArrayList<>(container.size());
+        for (EventMetrics metrics : container.values()) {
+            snapshots.add(metrics.snapshot());
+        }
+
+        return snapshots;
+    }
+}
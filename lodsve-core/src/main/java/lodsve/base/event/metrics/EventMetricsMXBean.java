@@ -0,0 +1,30 @@
+package lodsve.base.event.metrics;
+
+import java.util.List;
+
+/**
+ * 事件统计的JMX接口.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 20:15
+ */
+public interface EventMetricsMXBean {
+    /**
+     * 按事件类型统计
+     *
+     * @return 每个事件类型的统计数据
+     */
+    List<MetricsSnapshot> getEventTypeMetrics();
+
+    /**
+     * 按监听器统计
+     *
+     * @return 每个监听器的统计数据
+     */
+    List<MetricsSnapshot> getListenerMetrics();
+
+    /**
+     * 清空统计数据
+     */
+    void reset();
+}
@@ -0,0 +1,85 @@
+package lodsve.base.event.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 统计数据快照,耗时的单位均为微秒.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 20:15
+ */
+public class MetricsSnapshot {
+    private final String name;
+    private final long count;
+    private final long errorCount;
+    private final long meanLatency;
+    private final long p50Latency;
+    private final long p99Latency;
+    private final long maxLatency;
+    private final long p50QueueWait;
+    private final long p99QueueWait;
+    private final long maxQueueWait;
+
+    @ConstructorProperties({"name", "count", "errorCount", "meanLatency", "p50Latency", "p99Latency", "maxLatency",
+            "p50QueueWait", "p99QueueWait", "maxQueueWait"})
+    public MetricsSnapshot(String name, long count, long errorCount, long meanLatency, long p50Latency, long p99Latency, long maxLatency,
+                           long p50QueueWait, long p99QueueWait, long maxQueueWait) {
+        this.name = name;
+        this.count = count;
+        this.errorCount = errorCount;
+        this.meanLatency = meanLatency;
+        this.p50Latency = p50Latency;
+        this.p99Latency = p99Latency;
+        this.maxLatency = maxLatency;
+        this.p50QueueWait = p50QueueWait;
+        this.p99QueueWait = p99QueueWait;
+        this.maxQueueWait = maxQueueWait;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public long getMeanLatency() {
+        return meanLatency;
+    }
+
+    public long getP50Latency() {
+        return p50Latency;
+    }
+
+    public long getP99Latency() {
+        return p99Latency;
+    }
+
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+
+    public long getP50QueueWait() {
+        return p50QueueWait;
+    }
+
+    public long getP99QueueWait() {
+        return p99QueueWait;
+    }
+
+    public long getMaxQueueWait() {
+        return maxQueueWait;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{name='" + name + "', count=" + count + ", errorCount=" + errorCount +
+                ", meanLatency=" + meanLatency + "us, p50Latency=" + p50Latency + "us, p99Latency=" + p99Latency + "us, maxLatency=" + maxLatency +
+                "us, p50QueueWait=" + p50QueueWait + "us, p99QueueWait=" + p99QueueWait + "us, maxQueueWait=" + maxQueueWait + "us}";
+    }
+}
@@ -56,6 +56,16 @@ public class BaseEvent extends EventObject implements Serializable {
      */
     protected Date publishTime = new Date();
 
+    /**
+     * 分区key,可选.分区模式下相同key的异步事件会在同一个通道中按发布顺序执行.
+     */
+    protected Object partitionKey;
+
+    /**
+     * 合并key,可选.合并时间窗口内类型相同、合并key相同的事件,异步监听器只执行最后一个;同步监听器每个事件都会立即执行.
+     */
+    protected Object coalesceKey;
+
     /**
      * Constructs a prototypical Event.
      *
@@ -130,4 +140,20 @@ public class BaseEvent extends EventObject implements Serializable {
     public void setPublishTime(Date publishTime) {
         this.publishTime = publishTime;
     }
+
+    public Object getPartitionKey() {
+        return partitionKey;
+    }
+
+    public void setPartitionKey(Object partitionKey) {
+        this.partitionKey = partitionKey;
+    }
+
+    public Object getCoalesceKey() {
+        return coalesceKey;
+    }
+
+    public void setCoalesceKey(Object coalesceKey) {
+        this.coalesceKey = coalesceKey;
+    }
 }
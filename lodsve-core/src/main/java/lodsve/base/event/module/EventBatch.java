@@ -0,0 +1,25 @@
+package lodsve.base.event.module;
+
+import java.util.List;
+
+/**
+ * 批量发布时,同一类型(和同一分区key)的一组事件,只在事件执行器内部使用.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 18:05
+ */
+public class EventBatch extends BaseEvent {
+    private static final long serialVersionUID = 4542870149044309629L;
+
+    private final List<BaseEvent> events;
+
+    public EventBatch(List<BaseEvent> events) {
+        super(events);
+        this.events = events;
+        this.partitionKey = events.get(0).getPartitionKey();
+    }
+
+    public List<BaseEvent> getEvents() {
+        return events;
+    }
+}
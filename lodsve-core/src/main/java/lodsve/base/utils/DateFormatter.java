@@ -0,0 +1,321 @@
+package lodsve.base.utils;
+
+import org.springframework.util.Assert;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 线程安全、可以共享的日期格式化器,按pattern缓存.
+ * <p/>
+ * 只由数字字段(yyyy、MM、dd、HH、mm、ss)和分隔符组成的pattern(例如"yyyy-MM-dd"、"yyyy-MM-dd HH:mm"、"yyyy-MM-dd HH:mm:ss")
+ * 使用手写的解析和格式化,不创建SimpleDateFormat;其他pattern以及快速解析不了的字符串交给每个线程一个的SimpleDateFormat处理,
+ * 结果与SimpleDateFormat一致.
+ * <pre>
+ * Date date = DateFormatter.getInstance("yyyy-MM-dd").parse("2015-06-02");
+ * </pre>
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 16:20
+ */
+public abstract class DateFormatter {
+    /**
+     * 最多缓存的pattern个数,超过后不再缓存
+     */
+    private static final int MAX_CACHED_PATTERNS = 256;
+    private static final ConcurrentMap<String, DateFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
+    private final String pattern;
+
+    DateFormatter(String pattern) {
+        this.pattern = pattern;
+    }
+
+    /**
+     * 获取pattern对应的格式化器
+     *
+     * @param pattern 格式,同{@link SimpleDateFormat}
+     * @return 格式化器
+     */
+    public static DateFormatter getInstance(String pattern) {
+        Assert.hasText(pattern, "pattern is required!");
+
+        DateFormatter formatter = FORMATTERS.get(pattern);
+        if (formatter != null) {
+            return formatter;
+        }
+
+        formatter = NumericFormatter.compile(pattern);
+        if (formatter == null) {
+            formatter = new SimpleFormatter(pattern);
+        }
+        if (FORMATTERS.size() < MAX_CACHED_PATTERNS) {
+            DateFormatter exist = FORMATTERS.putIfAbsent(pattern, formatter);
+            formatter = exist != null ? exist : formatter;
+        }
+
+        return formatter;
+    }
+
+    /**
+     * 格式
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * 将日期格式化成字符串
+     *
+     * @param date 日期
+     * @return 字符串
+     */
+    public abstract String format(Date date);
+
+    /**
+     * 将字符串解析成日期,与{@link java.text.DateFormat#parse(String)}一样会忽略末尾多余的字符
+     *
+     * @param source 字符串
+     * @return 日期
+     * @throws ParseException 无法解析
+     */
+    public abstract Date parse(String source) throws ParseException;
+
+    /**
+     * 每个线程一个SimpleDateFormat
+     */
+    private static class SimpleFormatter extends DateFormatter {
+        private final ThreadLocal<SimpleDateFormat> formats;
+
+        SimpleFormatter(final String pattern) {
+            super(pattern);
+            // 提前校验pattern
+            new SimpleDateFormat(pattern);
+            this.formats = new ThreadLocal<SimpleDateFormat>() {
+                @Override
+                protected SimpleDateFormat initialValue() {
+                    return new SimpleDateFormat(pattern);
+                }
+            };
+        }
+
+        @Override
+        public String format(Date date) {
+            return formats.get().format(date);
+        }
+
+        @Override
+        public Date parse(String source) throws ParseException {
+            return formats.get().parse(source);
+        }
+    }
+
+    /**
+     * 只包含数字字段和分隔符的格式,字段之间必须有分隔符
+     */
+    private static class NumericFormatter extends SimpleFormatter {
+        private static final ThreadLocal<Calendar> CALENDARS = new ThreadLocal<Calendar>() {
+            @Override
+            protected Calendar initialValue() {
+                return Calendar.getInstance();
+            }
+        };
+        /**
+         * 数字最多的位数,超过交给SimpleDateFormat
+         */
+        private static final int MAX_DIGITS = 9;
+
+        /**
+         * Calendar的字段,分隔符为-1
+         */
+        private final int[] fields;
+        /**
+         * 格式化时最少的位数
+         */
+        private final int[] widths;
+        private final String[] literals;
+        private final int length;
+
+        private NumericFormatter(String pattern, int[] fields, int[] widths, String[] literals) {
+            super(pattern);
+            this.fields = fields;
+            this.widths = widths;
+            this.literals = literals;
+
+            int length = 0;
+            for (int i = 0; i < fields.length; i++) {
+                length += (fields[i] == -1 ? literals[i].length() : Math.max(widths[i], 2));
+            }
+            this.length = length;
+        }
+
+        static NumericFormatter compile(String pattern) {
+            List<Integer> fields = new ArrayList<>();
+            List<Integer> widths = new ArrayList<>();
+            List<String> literals = new ArrayList<>();
+
+            int i = 0;
+            while (i < pattern.length()) {
+                char c = pattern.charAt(i);
+                int start = i;
+                if (!Character.isLetter(c)) {
+                    while (i < pattern.length() && !Character.isLetter(pattern.charAt(i))) {
+                        if (pattern.charAt(i) == '\'') {
+                            return null;
+                        }
+                        i++;
+                    }
+                    fields.add(-1);
+                    widths.add(0);
+                    literals.add(pattern.substring(start, i));
+                    continue;
+                }
+
+                while (i < pattern.length() && pattern.charAt(i) == c) {
+                    i++;
+                }
+                int count = i - start;
+                int field = field(c, count);
+                // 字段必须用分隔符隔开,且不能重复
+                if (field == -1 || (!fields.isEmpty() && fields.get(fields.size() - 1) != -1) || fields.contains(field)) {
+                    return null;
+                }
+                fields.add(field);
+                widths.add(count);
+                literals.add(null);
+            }
+
+            int[] fieldArray = new int[fields.size()];
+            int[] widthArray = new int[widths.size()];
+            for (int j = 0; j < fieldArray.length; j++) {
+                fieldArray[j] = fields.get(j);
+                widthArray[j] = widths.get(j);
+            }
+
+            return new NumericFormatter(pattern, fieldArray, widthArray, literals.toArray(new String[literals.size()]));
+        }
+
+        private static int field(char c, int count) {
+            switch (c) {
+                case 'y':
+                    return count == 4 ? Calendar.YEAR : -1;
+                case 'M':
+                    return count <= 2 ? Calendar.MONTH : -1;
+                case 'd':
+                    return count <= 2 ? Calendar.DAY_OF_MONTH : -1;
+                case 'H':
+                    return count <= 2 ? Calendar.HOUR_OF_DAY : -1;
+                case 'm':
+                    return count <= 2 ? Calendar.MINUTE : -1;
+                case 's':
+                    return count <= 2 ? Calendar.SECOND : -1;
+                default:
+                    return -1;
+            }
+        }
+
+        @Override
+        public String format(Date date) {
+            Calendar calendar = CALENDARS.get();
+            calendar.setTime(date);
+
+            StringBuilder result = new StringBuilder(length);
+            for (int i = 0; i < fields.length; i++) {
+                int field = fields[i];
+                if (field == -1) {
+                    result.append(literals[i]);
+                    continue;
+                }
+
+                int value = calendar.get(field) + (field == Calendar.MONTH ? 1 : 0);
+                for (int width = widths[i], digits = digits(value); width > digits; width--) {
+                    result.append('0');
+                }
+                result.append(value);
+            }
+
+            return result.toString();
+        }
+
+        @Override
+        public Date parse(String source) throws ParseException {
+            Date date = parseFast(source);
+            return date != null ? date : super.parse(source);
+        }
+
+        /**
+         * 快速解析,遇到不符合的情况返回null,交给SimpleDateFormat处理(以保持完全一致的结果和异常)
+         */
+        private Date parseFast(String source) {
+            int year = 1970, month = 1, day = 1, hour = 0, minute = 0, second = 0;
+
+            int index = 0;
+            int length = source.length();
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i] == -1) {
+                    if (!source.startsWith(literals[i], index)) {
+                        return null;
+                    }
+                    index += literals[i].length();
+                    continue;
+                }
+
+                int start = index;
+                int value = 0;
+                while (index < length && index - start <= MAX_DIGITS) {
+                    char c = source.charAt(index);
+                    if (c < '0' || c > '9') {
+                        break;
+                    }
+                    value = value * 10 + (c - '0');
+                    index++;
+                }
+                if (index == start || index - start > MAX_DIGITS) {
+                    return null;
+                }
+
+                switch (fields[i]) {
+                    case Calendar.YEAR:
+                        year = value;
+                        break;
+                    case Calendar.MONTH:
+                        month = value;
+                        break;
+                    case Calendar.DAY_OF_MONTH:
+                        day = value;
+                        break;
+                    case Calendar.HOUR_OF_DAY:
+                        hour = value;
+                        break;
+                    case Calendar.MINUTE:
+                        minute = value;
+                        break;
+                    default:
+                        second = value;
+                }
+            }
+
+            Calendar calendar = CALENDARS.get();
+            calendar.clear();
+            calendar.set(year, month - 1, day, hour, minute, second);
+
+            return calendar.getTime();
+        }
+
+        private static int digits(int value) {
+            int digits = 1;
+            while (value >= 10) {
+                value /= 10;
+                digits++;
+            }
+
+            return digits;
+        }
+    }
+}
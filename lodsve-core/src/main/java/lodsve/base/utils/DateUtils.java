@@ -1,7 +1,6 @@
 package lodsve.base.utils;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 /**
@@ -39,7 +38,7 @@ public final class DateUtils extends org.apache.commons.lang.time.DateUtils {
             pat = DEFAULT_PATTERN;
         }
         try {
-            return new SimpleDateFormat(pat).parse(date);
+            return DateFormatter.getInstance(pat).parse(date);
         } catch (ParseException e) {
             return null;
         }
@@ -57,7 +56,7 @@ public final class DateUtils extends org.apache.commons.lang.time.DateUtils {
             pattern = DEFAULT_PATTERN;
         }
 
-        return new SimpleDateFormat(pattern).format(date);
+        return DateFormatter.getInstance(pattern).format(date);
     }
 
     /**
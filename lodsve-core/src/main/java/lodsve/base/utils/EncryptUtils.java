@@ -5,13 +5,27 @@ import sun.misc.BASE64Encoder;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.math.BigInteger;
-import java.nio.MappedByteBuffer;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 加密工具类.
@@ -23,6 +37,25 @@ import java.security.NoSuchAlgorithmException;
 public class EncryptUtils {
     private static char hexDigits[] = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
 
+    public static final String MD5 = "MD5";
+    public static final String SHA1 = "SHA-1";
+    public static final String SHA256 = "SHA-256";
+
+    /**
+     * 每次从文件中读取的字节数
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * 每个线程按算法缓存MessageDigest,避免每次都getInstance
+     */
+    private static final ThreadLocal<Map<String, MessageDigest>> DIGESTS = new ThreadLocal<Map<String, MessageDigest>>() {
+        @Override
+        protected Map<String, MessageDigest> initialValue() {
+            return new HashMap<>();
+        }
+    };
+
     /**
      * 用MD5算法进行加密
      *
@@ -74,15 +107,9 @@ public class EncryptUtils {
      * @return
      */
     private static String encode(String plainText, EncryptType encryptType) {
-        String dstr = null;
-        try {
-            MessageDigest md = MessageDigest.getInstance(encryptType.name());
-            md.update(plainText.getBytes());
-            dstr = new BigInteger(1, md.digest()).toString(16);
-        } catch (NoSuchAlgorithmException e) {
-            e.printStackTrace();
-        }
-        return dstr;
+        MessageDigest md = digest(encryptType.name());
+        md.update(plainText.getBytes());
+        return new BigInteger(1, md.digest()).toString(16);
     }
 
     /**
@@ -101,14 +128,14 @@ public class EncryptUtils {
      */
     public static String getFileMD5String(File file) {
         try {
-            return getFileMD5String(new FileInputStream(file));
-        } catch (FileNotFoundException e) {
-            return "";
+            return digestFile(file, MD5).get(MD5);
+        } catch (IOException e) {
+            return StringUtils.EMPTY;
         }
     }
 
     /**
-     * 获取文件MD5值
+     * 获取文件MD5值(从流的当前位置读到末尾,不会关闭流)
      *
      * @param in
      * @return
@@ -116,19 +143,137 @@ public class EncryptUtils {
      */
     public static String getFileMD5String(FileInputStream in) {
         try {
-            // 获得MD5摘要算法的 MessageDigest 对象
-            MessageDigest messagedigest = MessageDigest.getInstance("MD5");
-
-            FileChannel ch = in.getChannel();
-            MappedByteBuffer byteBuffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, in.available());
-            messagedigest.update(byteBuffer);
-
-            return bufferToHex(messagedigest.digest());
+            return digest(in.getChannel(), MD5).get(MD5);
         } catch (Exception e) {
             return StringUtils.EMPTY;
         }
     }
 
+    /**
+     * 读一遍文件同时计算多种摘要
+     *
+     * @param file       文件
+     * @param algorithms 算法,如{@link #MD5}、{@link #SHA1}、{@link #SHA256}
+     * @return 算法 -> 摘要(16进制小写),顺序与algorithms一致,重复的算法只出现一次
+     * @throws IOException
+     */
+    public static Map<String, String> digestFile(File file, String... algorithms) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            return digest(in.getChannel(), algorithms);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 并行计算多个文件的摘要
+     *
+     * @param files      文件
+     * @param threads    线程数,小于等于1时在当前线程计算
+     * @param algorithms 算法,如{@link #MD5}、{@link #SHA1}、{@link #SHA256}
+     * @return 文件 -> (算法 -> 摘要),顺序与files一致
+     * @throws IOException
+     */
+    public static Map<File, Map<String, String>> digestFiles(Collection<File> files, int threads, final String... algorithms) throws IOException {
+        Map<File, Map<String, String>> result = new LinkedHashMap<>();
+        if (threads <= 1 || files.size() <= 1) {
+            for (File file : files) {
+                result.put(file, digestFile(file, algorithms));
+            }
+
+            return result;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.size()), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "lodsve-digest-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            List<Future<Map<String, String>>> futures = new ArrayList<>(files.size());
+            for (final File file : files) {
+                futures.add(executor.submit(new Callable<Map<String, String>>() {
+                    @Override
+                    public Map<String, String> call() throws Exception {
+                        return digestFile(file, algorithms);
+                    }
+                }));
+            }
+
+            int index = 0;
+            for (File file : files) {
+                try {
+                    result.put(file, futures.get(index++).get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IOException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return result;
+    }
+
+    private static Map<String, String> digest(FileChannel channel, String... algorithms) throws IOException {
+        // 重复的算法只计算一次,否则会共用同一个MessageDigest,结果错误
+        String[] names = new LinkedHashSet<>(Arrays.asList(algorithms)).toArray(new String[0]);
+        MessageDigest[] digests = new MessageDigest[names.length];
+        for (int i = 0; i < names.length; i++) {
+            digests[i] = digest(names[i]);
+        }
+
+        // 堆内存缓冲区,用完由GC回收;MessageDigest直接读它的数组,不需要额外复制
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            for (MessageDigest digest : digests) {
+                buffer.position(0);
+                digest.update(buffer);
+            }
+            buffer.clear();
+        }
+
+        Map<String, String> result = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            result.put(names[i], bufferToHex(digests[i].digest()));
+        }
+
+        return result;
+    }
+
+    /**
+     * 获取当前线程缓存的MessageDigest
+     */
+    private static MessageDigest digest(String algorithm) {
+        Map<String, MessageDigest> digests = DIGESTS.get();
+        MessageDigest digest = digests.get(algorithm);
+        if (digest == null) {
+            try {
+                digest = MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalArgumentException("unsupported digest algorithm '" + algorithm + "'!", e);
+            }
+            digests.put(algorithm, digest);
+        } else {
+            digest.reset();
+        }
+
+        return digest;
+    }
+
     private static String bufferToHex(byte bytes[]) {
         return bufferToHex(bytes, 0, bytes.length);
     }
@@ -0,0 +1,19 @@
+package lodsve.base.utils;
+
+import java.util.List;
+
+/**
+ * 流式导入excel时,分批处理读取到的数据.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 13:10
+ */
+public interface ExcelRowHandler<T> {
+    /**
+     * 处理一批数据,每批最多batchSize条
+     *
+     * @param rows 本批数据,处理完后不再被引用
+     * @throws Exception 抛出异常会中止导入
+     */
+    public void handle(List<T> rows) throws Exception;
+}
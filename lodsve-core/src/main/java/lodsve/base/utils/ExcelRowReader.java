@@ -0,0 +1,810 @@
+package lodsve.base.utils;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.ExtendedFormatRecord;
+import org.apache.poi.hssf.record.FormatRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MulRKRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.RKRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 逐行读取excel第一个sheet的数据,不在内存中保存整个工作簿的单元格.
+ * <p/>
+ * .xls使用poi的事件模型读取记录(只保留文件本身的字节,不创建单元格对象),.xlsx使用SAX解析sheet的xml,根据文件头自动判断格式.
+ * 内存占用有上限只对.xlsx成立,.xls由POIFSFileSystem把整个文件读入内存.
+ * <p/>
+ * 和jxl的getContents一样,日期格式的数字单元格按单元格格式转成日期文本.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 13:10
+ */
+abstract class ExcelRowReader {
+    /**
+     * 读取到一行数据时回调
+     */
+    interface RowCallback {
+        /**
+         * @param rowIndex 行号,从0开始
+         * @param values   按列号存放的单元格内容,长度等于需要读取的列数,没有值的单元格为空字符串
+         */
+        void row(int rowIndex, String[] values) throws Exception;
+    }
+
+    /**
+     * excel内置的日期格式,自定义格式的编号从164开始
+     */
+    private static final Map<Integer, String> BUILTIN_DATE_FORMATS = new HashMap<>();
+    private static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+
+    static {
+        BUILTIN_DATE_FORMATS.put(14, "m/d/yy");
+        BUILTIN_DATE_FORMATS.put(15, "d-mmm-yy");
+        BUILTIN_DATE_FORMATS.put(16, "d-mmm");
+        BUILTIN_DATE_FORMATS.put(17, "mmm-yy");
+        BUILTIN_DATE_FORMATS.put(18, "h:mm AM/PM");
+        BUILTIN_DATE_FORMATS.put(19, "h:mm:ss AM/PM");
+        BUILTIN_DATE_FORMATS.put(20, "h:mm");
+        BUILTIN_DATE_FORMATS.put(21, "h:mm:ss");
+        BUILTIN_DATE_FORMATS.put(22, "m/d/yy h:mm");
+        BUILTIN_DATE_FORMATS.put(45, "mm:ss");
+        BUILTIN_DATE_FORMATS.put(46, "[h]:mm:ss");
+        BUILTIN_DATE_FORMATS.put(47, "mm:ss.0");
+        // 中文版excel的内置格式,xlsx中不写入styles.xml
+        BUILTIN_DATE_FORMATS.put(27, "yyyy\"年\"m\"月\"");
+        BUILTIN_DATE_FORMATS.put(28, "m\"月\"d\"日\"");
+        BUILTIN_DATE_FORMATS.put(29, "m\"月\"d\"日\"");
+        BUILTIN_DATE_FORMATS.put(30, "m-d-yy");
+        BUILTIN_DATE_FORMATS.put(31, "yyyy\"年\"m\"月\"d\"日\"");
+        BUILTIN_DATE_FORMATS.put(32, "h\"时\"mm\"分\"");
+        BUILTIN_DATE_FORMATS.put(33, "h\"时\"mm\"分\"ss\"秒\"");
+        BUILTIN_DATE_FORMATS.put(36, "yyyy\"年\"m\"月\"");
+        BUILTIN_DATE_FORMATS.put(50, "yyyy\"年\"m\"月\"");
+        BUILTIN_DATE_FORMATS.put(51, "m\"月\"d\"日\"");
+        BUILTIN_DATE_FORMATS.put(52, "yyyy\"年\"m\"月\"");
+        BUILTIN_DATE_FORMATS.put(53, "m\"月\"d\"日\"");
+        BUILTIN_DATE_FORMATS.put(54, "m\"月\"d\"日\"");
+        BUILTIN_DATE_FORMATS.put(57, "yyyy\"年\"m\"月\"");
+        BUILTIN_DATE_FORMATS.put(58, "m\"月\"d\"日\"");
+    }
+
+    protected final int columnCount;
+    protected final RowCallback callback;
+
+    /**
+     * 按单元格格式(xf)的顺序存放对应的数字格式编号
+     */
+    private final List<Integer> cellFormats = new ArrayList<>();
+    /**
+     * 文件中定义的数字格式
+     */
+    private final Map<Integer, String> numberFormats = new HashMap<>();
+    private final Map<String, DateFormat> dateFormats = new HashMap<>();
+    /**
+     * 是否使用1904日期系统(mac版excel)
+     */
+    protected boolean date1904;
+
+    private int currentRow = -1;
+    private String[] values;
+
+    ExcelRowReader(int columnCount, RowCallback callback) {
+        this.columnCount = columnCount;
+        this.callback = callback;
+    }
+
+    /**
+     * 根据文件头选择读取器并读取
+     *
+     * @param is          excel
+     * @param columnCount 需要读取的列数
+     * @param callback    每一行的回调
+     */
+    static void read(InputStream is, int columnCount, RowCallback callback) throws Exception {
+        InputStream in = is.markSupported() ? is : new BufferedInputStream(is);
+        in.mark(4);
+        byte[] header = new byte[4];
+        int length = in.read(header);
+        in.reset();
+
+        // zip文件头"PK\3\4"是xlsx,否则按xls处理
+        if (length == 4 && header[0] == 'P' && header[1] == 'K' && header[2] == 3 && header[3] == 4) {
+            new XlsxRowReader(columnCount, callback).doRead(in);
+        } else {
+            new XlsRowReader(columnCount, callback).doRead(in);
+        }
+    }
+
+    abstract void doRead(InputStream in) throws Exception;
+
+    /**
+     * 设置单元格的值,行号变化时把上一行交给回调
+     */
+    protected void cell(int row, int column, String value) throws Exception {
+        if (row != currentRow) {
+            flushRow();
+            currentRow = row;
+        }
+        if (column < 0 || column >= columnCount || value == null) {
+            return;
+        }
+
+        if (values == null) {
+            values = new String[columnCount];
+            Arrays.fill(values, StringUtils.EMPTY);
+        }
+        values[column] = value;
+    }
+
+    protected void flushRow() throws Exception {
+        if (values != null) {
+            callback.row(currentRow, values);
+        }
+        values = null;
+        currentRow = -1;
+    }
+
+    protected void addNumberFormat(int index, String format) {
+        numberFormats.put(index, format);
+    }
+
+    protected void addCellFormat(int formatIndex) {
+        cellFormats.add(formatIndex);
+    }
+
+    /**
+     * 数字按单元格格式转成字符串,日期格式的单元格转成日期文本
+     *
+     * @param xfIndex 单元格格式的序号
+     */
+    protected String formatNumber(double value, int xfIndex) {
+        DateFormat format = getDateFormat(xfIndex);
+        if (format == null) {
+            return formatNumber(value);
+        }
+
+        // 和jxl一样,1900日期系统中1900-03-01之前的日期要修正excel把1900年当作闰年的错误
+        boolean time = Math.abs(value) < 1;
+        if (!time && !date1904 && value < 61) {
+            value += 1;
+        }
+        long seconds = Math.round((value - (date1904 ? 24107 : 25569)) * 86400);
+
+        return format.format(new Date(seconds * 1000));
+    }
+
+    /**
+     * 数字转成字符串,整数不带小数点
+     */
+    static String formatNumber(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return String.valueOf((long) value);
+        }
+
+        return BigDecimal.valueOf(value).toPlainString();
+    }
+
+    /**
+     * @return 单元格是日期格式时返回对应的DateFormat, 否则返回null
+     */
+    private DateFormat getDateFormat(int xfIndex) {
+        if (xfIndex < 0 || xfIndex >= cellFormats.size()) {
+            return null;
+        }
+
+        int index = cellFormats.get(xfIndex);
+        String format = numberFormats.containsKey(index) ? numberFormats.get(index) : BUILTIN_DATE_FORMATS.get(index);
+        if (format == null || (!BUILTIN_DATE_FORMATS.containsKey(index) && !isDateFormat(format))) {
+            return null;
+        }
+
+        DateFormat dateFormat = dateFormats.get(format);
+        if (dateFormat == null) {
+            try {
+                dateFormat = new SimpleDateFormat(toDatePattern(format));
+            } catch (IllegalArgumentException e) {
+                dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+            }
+            dateFormat.setTimeZone(GMT);
+            dateFormats.put(format, dateFormat);
+        }
+
+        return dateFormat;
+    }
+
+    /**
+     * 去掉引号中的文本、转义字符和[]中的颜色、区域设置后,只剩下日期时间的占位符和分隔符
+     */
+    static boolean isDateFormat(String format) {
+        String section = firstSection(format);
+        StringBuilder tokens = new StringBuilder();
+        for (int i = 0; i < section.length(); i++) {
+            char c = section.charAt(i);
+            if (c == '"') {
+                int end = section.indexOf('"', i + 1);
+                i = (end < 0 ? section.length() : end);
+            } else if (c == '\\' || c == '_' || c == '*') {
+                i++;
+            } else if (c == '[') {
+                int end = section.indexOf(']', i);
+                String content = section.substring(i + 1, end < 0 ? section.length() : end);
+                if (content.matches("[hHmMsS]+")) {
+                    tokens.append(content);
+                }
+                i = (end < 0 ? section.length() : end);
+            } else {
+                tokens.append(c);
+            }
+        }
+
+        String lower = tokens.toString().toLowerCase().replace("am/pm", "").replace("a/p", "");
+        return lower.matches("[ydmhs0/\\-.,:\\s]*[ydmhs][ydmhs0/\\-.,:\\s]*");
+    }
+
+    /**
+     * excel的日期格式转成SimpleDateFormat的格式,如yyyy/m/d h:mm -> yyyy/M/d H:mm
+     */
+    static String toDatePattern(String format) {
+        String section = firstSection(format);
+        String upper = section.toUpperCase();
+        boolean halfDay = upper.contains("AM/PM") || upper.contains("A/P");
+
+        StringBuilder pattern = new StringBuilder();
+        char last = 0;
+        int i = 0;
+        while (i < section.length()) {
+            char c = section.charAt(i);
+            char lower = Character.toLowerCase(c);
+            if (c == '"') {
+                int end = section.indexOf('"', i + 1);
+                end = (end < 0 ? section.length() : end);
+                appendLiteral(pattern, section.substring(i + 1, end));
+                i = end + 1;
+            } else if (c == '\\') {
+                appendLiteral(pattern, i + 1 < section.length() ? section.substring(i + 1, i + 2) : StringUtils.EMPTY);
+                i += 2;
+            } else if (c == '_') {
+                pattern.append(' ');
+                i += 2;
+            } else if (c == '*') {
+                i += 2;
+            } else if (c == '[') {
+                // [h]:mm:ss等累计时间只保留占位符,颜色和区域设置去掉
+                int end = section.indexOf(']', i);
+                end = (end < 0 ? section.length() : end);
+                String content = section.substring(i + 1, end);
+                section = section.substring(0, i) + (content.matches("[hHmMsS]+") ? content : StringUtils.EMPTY)
+                        + (end < section.length() ? section.substring(end + 1) : StringUtils.EMPTY);
+                upper = section.toUpperCase();
+            } else if (upper.startsWith("AM/PM", i)) {
+                pattern.append('a');
+                i += 5;
+            } else if (upper.startsWith("A/P", i)) {
+                pattern.append('a');
+                i += 3;
+            } else if (lower == 'y' || lower == 'd' || lower == 'h' || lower == 'm' || lower == 's') {
+                int count = 1;
+                while (i + count < section.length() && Character.toLowerCase(section.charAt(i + count)) == lower) {
+                    count++;
+                }
+
+                if (lower == 'y') {
+                    pattern.append(count <= 2 ? "yy" : "yyyy");
+                } else if (lower == 'd') {
+                    pattern.append(count <= 2 ? repeat('d', count) : (count == 3 ? "EEE" : "EEEE"));
+                } else if (lower == 'h') {
+                    pattern.append(repeat(halfDay ? 'h' : 'H', count));
+                } else if (lower == 's') {
+                    pattern.append(repeat('s', count));
+                    // ss.0 -> ss.S
+                    int zeros = 0;
+                    while (i + count + 1 + zeros < section.length() && section.charAt(i + count) == '.'
+                            && section.charAt(i + count + 1 + zeros) == '0') {
+                        zeros++;
+                    }
+                    if (zeros > 0) {
+                        pattern.append('.').append(repeat('S', zeros));
+                        count += zeros + 1;
+                    }
+                } else if (last == 'h' || isFollowedBySecond(section, i + count)) {
+                    // h后面或s前面的m是分钟
+                    pattern.append(repeat('m', Math.min(count, 2)));
+                } else {
+                    pattern.append(count <= 2 ? repeat('M', count) : (count == 4 ? "MMMM" : "MMM"));
+                }
+                last = lower;
+                i += count;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                appendLiteral(pattern, String.valueOf(c));
+                i++;
+            } else if (c == '\'') {
+                pattern.append("''");
+                i++;
+            } else {
+                pattern.append(c);
+                i++;
+            }
+        }
+
+        return pattern.toString();
+    }
+
+    /**
+     * 只取第一段(正数)的格式,如yyyy/m/d;@
+     */
+    private static String firstSection(String format) {
+        int index = format.indexOf(';');
+        return index < 0 ? format : format.substring(0, index);
+    }
+
+    private static boolean isFollowedBySecond(String format, int from) {
+        for (int i = from; i < format.length(); i++) {
+            char c = Character.toLowerCase(format.charAt(i));
+            if (c == 's') {
+                return true;
+            } else if (c == 'y' || c == 'd' || c == 'h' || c == 'm') {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    private static void appendLiteral(StringBuilder pattern, String text) {
+        if (text.length() > 0) {
+            pattern.append('\'').append(StringUtils.replace(text, "'", "''")).append('\'');
+        }
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    /**
+     * 读取.xls,poi事件模型一次只处理一条记录,但POIFSFileSystem会先把整个文件读入内存
+     */
+    private static class XlsRowReader extends ExcelRowReader {
+        private SSTRecord sst;
+        private int sheetIndex = -1;
+        private int formulaRow = -1;
+        private int formulaColumn = -1;
+
+        XlsRowReader(int columnCount, RowCallback callback) {
+            super(columnCount, callback);
+        }
+
+        @Override
+        void doRead(InputStream in) throws Exception {
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(new AbortableHSSFListener() {
+                @Override
+                public short abortableProcessRecord(Record record) throws HSSFUserException {
+                    try {
+                        return process(record) ? (short) 0 : (short) 1;
+                    } catch (Exception e) {
+                        throw new HSSFUserException(e.getMessage(), e);
+                    }
+                }
+            });
+
+            try {
+                new HSSFEventFactory().abortableProcessWorkbookEvents(request, new POIFSFileSystem(in));
+            } catch (HSSFUserException e) {
+                throw e.getReason() instanceof Exception ? (Exception) e.getReason() : e;
+            }
+        }
+
+        /**
+         * @return 是否继续读取
+         */
+        private boolean process(Record record) throws Exception {
+            if (record instanceof BOFRecord) {
+                if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+                    sheetIndex++;
+                }
+                return true;
+            }
+            if (record instanceof SSTRecord) {
+                sst = (SSTRecord) record;
+                return true;
+            }
+            if (record instanceof FormatRecord) {
+                FormatRecord r = (FormatRecord) record;
+                addNumberFormat(r.getIndexCode() & 0xFFFF, r.getFormatString());
+                return true;
+            }
+            if (record instanceof ExtendedFormatRecord) {
+                addCellFormat(((ExtendedFormatRecord) record).getFormatIndex() & 0xFFFF);
+                return true;
+            }
+            if (record instanceof DateWindow1904Record) {
+                date1904 = ((DateWindow1904Record) record).getWindowing() == 1;
+                return true;
+            }
+            if (sheetIndex != 0) {
+                // 只读取第一个sheet
+                return sheetIndex < 0;
+            }
+
+            if (record instanceof EOFRecord) {
+                flushRow();
+                return false;
+            } else if (record instanceof LabelSSTRecord) {
+                LabelSSTRecord r = (LabelSSTRecord) record;
+                cell(r.getRow(), r.getColumn(), sst == null ? null : sst.getString(r.getSSTIndex()));
+            } else if (record instanceof LabelRecord) {
+                LabelRecord r = (LabelRecord) record;
+                cell(r.getRow(), r.getColumn(), r.getValue());
+            } else if (record instanceof NumberRecord) {
+                NumberRecord r = (NumberRecord) record;
+                cell(r.getRow(), r.getColumn(), formatNumber(r.getValue(), r.getXFIndex() & 0xFFFF));
+            } else if (record instanceof RKRecord) {
+                RKRecord r = (RKRecord) record;
+                cell(r.getRow(), r.getColumn(), formatNumber(r.getRKNumber(), r.getXFIndex() & 0xFFFF));
+            } else if (record instanceof MulRKRecord) {
+                MulRKRecord r = (MulRKRecord) record;
+                for (int i = 0; i < r.getNumColumns(); i++) {
+                    cell(r.getRow(), r.getFirstColumn() + i, formatNumber(r.getRKNumberAt(i), r.getXFAt(i) & 0xFFFF));
+                }
+            } else if (record instanceof BoolErrRecord) {
+                BoolErrRecord r = (BoolErrRecord) record;
+                cell(r.getRow(), r.getColumn(), r.isBoolean() ? String.valueOf(r.getBooleanValue()).toUpperCase() : null);
+            } else if (record instanceof FormulaRecord) {
+                FormulaRecord r = (FormulaRecord) record;
+                formulaRow = r.getRow();
+                formulaColumn = r.getColumn();
+                cell(formulaRow, formulaColumn, formatNumber(r.getValue(), r.getXFIndex() & 0xFFFF));
+            } else if (record instanceof StringRecord && formulaRow >= 0) {
+                // 公式的结果是字符串时,紧跟在公式记录后面
+                cell(formulaRow, formulaColumn, ((StringRecord) record).getString());
+                formulaRow = -1;
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * 读取.xlsx,zip需要随机访问,先写到临时文件
+     */
+    private static class XlsxRowReader extends ExcelRowReader {
+        private static final String WORKBOOK = "xl/workbook.xml";
+        private static final String WORKBOOK_RELS = "xl/_rels/workbook.xml.rels";
+        private static final String SHARED_STRINGS = "xl/sharedStrings.xml";
+        private static final String STYLES = "xl/styles.xml";
+        private static final String DEFAULT_SHEET = "xl/worksheets/sheet1.xml";
+
+        private final SAXParserFactory factory = SAXParserFactory.newInstance();
+        private final List<String> sharedStrings = new ArrayList<>();
+
+        XlsxRowReader(int columnCount, RowCallback callback) {
+            super(columnCount, callback);
+            factory.setNamespaceAware(true);
+            // 禁止DTD和外部实体,防止XXE
+            try {
+                factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+                factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+                factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+                factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            } catch (Exception e) {
+                throw new IllegalStateException("xml parser does not support secure processing!", e);
+            }
+        }
+
+        @Override
+        void doRead(InputStream in) throws Exception {
+            File temp = File.createTempFile("lodsve-excel-", ".xlsx");
+            ZipFile zip = null;
+            try {
+                copy(in, temp);
+                zip = new ZipFile(temp);
+
+                ZipEntry strings = zip.getEntry(SHARED_STRINGS);
+                if (strings != null) {
+                    parse(zip, strings, new SharedStringsHandler());
+                }
+                ZipEntry styles = zip.getEntry(STYLES);
+                if (styles != null) {
+                    parse(zip, styles, new StylesHandler());
+                }
+
+                ZipEntry sheet = zip.getEntry(findFirstSheet(zip));
+                if (sheet == null) {
+                    sheet = zip.getEntry(DEFAULT_SHEET);
+                }
+                if (sheet != null) {
+                    parse(zip, sheet, new SheetHandler());
+                    flushRow();
+                }
+            } finally {
+                if (zip != null) {
+                    zip.close();
+                }
+                if (!temp.delete()) {
+                    temp.deleteOnExit();
+                }
+            }
+        }
+
+        private void copy(InputStream in, File file) throws IOException {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+            } finally {
+                out.close();
+            }
+        }
+
+        private void parse(ZipFile zip, ZipEntry entry, DefaultHandler handler) throws Exception {
+            InputStream in = zip.getInputStream(entry);
+            try {
+                SAXParser parser = factory.newSAXParser();
+                parser.parse(in, handler);
+            } catch (StopParsingException e) {
+                // 已经取到需要的内容
+            } finally {
+                in.close();
+            }
+        }
+
+        /**
+         * 从workbook.xml和它的关系文件中找到第一个sheet的路径
+         */
+        private String findFirstSheet(ZipFile zip) throws Exception {
+            ZipEntry workbook = zip.getEntry(WORKBOOK);
+            ZipEntry rels = zip.getEntry(WORKBOOK_RELS);
+            if (workbook == null || rels == null) {
+                return DEFAULT_SHEET;
+            }
+
+            final String[] result = new String[2];
+            parse(zip, workbook, new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+                    if ("workbookPr".equals(localName)) {
+                        String value = attributes.getValue("date1904");
+                        date1904 = "1".equals(value) || "true".equalsIgnoreCase(value);
+                    } else if ("sheet".equals(localName)) {
+                        for (int i = 0; i < attributes.getLength(); i++) {
+                            if ("id".equals(attributes.getLocalName(i)) && StringUtils.isNotEmpty(attributes.getURI(i))) {
+                                result[0] = attributes.getValue(i);
+                            }
+                        }
+                        throw new StopParsingException();
+                    }
+                }
+            });
+            if (result[0] == null) {
+                return DEFAULT_SHEET;
+            }
+
+            parse(zip, rels, new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+                    if ("Relationship".equals(localName) && result[0].equals(attributes.getValue("Id"))) {
+                        result[1] = attributes.getValue("Target");
+                        throw new StopParsingException();
+                    }
+                }
+            });
+            if (result[1] == null) {
+                return DEFAULT_SHEET;
+            }
+
+            return result[1].startsWith("/") ? result[1].substring(1) : "xl/" + result[1];
+        }
+
+        /**
+         * 共享字符串表,&lt;si&gt;下可能有多个&lt;t&gt;(富文本),&lt;rPh&gt;中的注音不算
+         */
+        private class SharedStringsHandler extends DefaultHandler {
+            private final StringBuilder text = new StringBuilder();
+            private boolean inText;
+            private boolean inPhonetic;
+
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if ("si".equals(localName)) {
+                    text.setLength(0);
+                } else if ("rPh".equals(localName)) {
+                    inPhonetic = true;
+                } else if ("t".equals(localName) && !inPhonetic) {
+                    inText = true;
+                }
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName) {
+                if ("si".equals(localName)) {
+                    sharedStrings.add(text.toString());
+                } else if ("rPh".equals(localName)) {
+                    inPhonetic = false;
+                } else if ("t".equals(localName)) {
+                    inText = false;
+                }
+            }
+
+            @Override
+            public void characters(char[] ch, int start, int length) {
+                if (inText) {
+                    text.append(ch, start, length);
+                }
+            }
+        }
+
+        /**
+         * 样式表,&lt;numFmts&gt;中是自定义的数字格式,&lt;cellXfs&gt;中是单元格格式,单元格的s属性是它的序号
+         */
+        private class StylesHandler extends DefaultHandler {
+            private boolean inCellFormats;
+
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if ("numFmt".equals(localName)) {
+                    String id = attributes.getValue("numFmtId");
+                    String code = attributes.getValue("formatCode");
+                    if (id != null && code != null) {
+                        addNumberFormat(Integer.parseInt(id.trim()), code);
+                    }
+                } else if ("cellXfs".equals(localName)) {
+                    inCellFormats = true;
+                } else if ("xf".equals(localName) && inCellFormats) {
+                    String id = attributes.getValue("numFmtId");
+                    addCellFormat(id != null ? Integer.parseInt(id.trim()) : 0);
+                }
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName) throws SAXException {
+                if ("cellXfs".equals(localName)) {
+                    // 后面的字体、颜色等用不到
+                    throw new StopParsingException();
+                }
+            }
+        }
+
+        /**
+         * sheet数据,&lt;row r="2"&gt;&lt;c r="B2" t="s"&gt;&lt;v&gt;0&lt;/v&gt;&lt;/c&gt;&lt;/row&gt;
+         */
+        private class SheetHandler extends DefaultHandler {
+            private final StringBuilder text = new StringBuilder();
+            private int row = -1;
+            private int column = -1;
+            private String type;
+            private int style;
+            private boolean inValue;
+
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if ("row".equals(localName)) {
+                    String r = attributes.getValue("r");
+                    row = (r != null ? Integer.parseInt(r) - 1 : row + 1);
+                    column = -1;
+                } else if ("c".equals(localName)) {
+                    String r = attributes.getValue("r");
+                    column = (r != null ? columnIndex(r) : column + 1);
+                    type = attributes.getValue("t");
+                    String s = attributes.getValue("s");
+                    style = (s != null ? Integer.parseInt(s.trim()) : 0);
+                    text.setLength(0);
+                } else if ("v".equals(localName) || "t".equals(localName)) {
+                    inValue = true;
+                }
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName) throws SAXException {
+                if ("v".equals(localName) || "t".equals(localName)) {
+                    inValue = false;
+                } else if ("c".equals(localName)) {
+                    try {
+                        cell(row, column, value(text.toString()));
+                    } catch (SAXException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new SAXException(e);
+                    }
+                }
+            }
+
+            @Override
+            public void characters(char[] ch, int start, int length) {
+                if (inValue) {
+                    text.append(ch, start, length);
+                }
+            }
+
+            private String value(String raw) {
+                if (StringUtils.isEmpty(raw)) {
+                    return null;
+                }
+
+                if ("s".equals(type)) {
+                    int index = Integer.parseInt(raw.trim());
+                    return index < sharedStrings.size() ? sharedStrings.get(index) : null;
+                } else if ("b".equals(type)) {
+                    return "1".equals(raw) ? "TRUE" : "FALSE";
+                } else if ("str".equals(type) || "inlineStr".equals(type) || "e".equals(type)) {
+                    return raw;
+                }
+
+                try {
+                    return formatNumber(Double.parseDouble(raw), style);
+                } catch (NumberFormatException e) {
+                    return raw;
+                }
+            }
+
+            /**
+             * "AB12" -> 27
+             */
+            private int columnIndex(String reference) {
+                int index = 0;
+                for (int i = 0; i < reference.length(); i++) {
+                    char c = reference.charAt(i);
+                    if (c < 'A' || c > 'Z') {
+                        break;
+                    }
+                    index = index * 26 + (c - 'A' + 1);
+                }
+
+                return index - 1;
+            }
+        }
+    }
+
+    /**
+     * 已经取到需要的内容,中止SAX解析
+     */
+    private static class StopParsingException extends SAXException {
+        private static final long serialVersionUID = 7498883276394722902L;
+
+        StopParsingException() {
+            super("stop parsing");
+        }
+    }
+}
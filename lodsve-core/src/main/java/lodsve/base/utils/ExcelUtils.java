@@ -5,15 +5,23 @@ import jxl.Sheet;
 import jxl.Workbook;
 import jxl.read.biff.BiffException;
 import org.apache.commons.beanutils.BeanUtils;
+import org.apache.commons.beanutils.ConvertUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
 
+import java.beans.PropertyDescriptor;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
- * Excel导入的工具类.
+ * Excel导入导出的工具类.
  *
  * @author sunhao(sunhao.java@gmail.com)
  * @version V1.0, 14-2-24 下午2:07
@@ -100,19 +108,257 @@ public class ExcelUtils {
             return Collections.EMPTY_LIST;
         }
 
+        SetterPlan<T> plan = SetterPlan.forClass(clazz, excelColumnNames);
         List<T> result = new ArrayList<T>(data.size());
         for(Map<String, String> d : data) {
             if(checkExcel != null && !checkExcel.check(d)) {
                 continue;
             }
+
+            result.add(plan.create(d));
+        }
+
+        return result;
+    }
+
+    /**
+     * 流式导入excel(支持.xls和.xlsx),逐行读取并分批交给handler处理,内存中最多只保留一批数据.
+     * 内存占用有上限只对.xlsx成立(先写到临时文件再逐个读取xml),.xls会先把整个文件读入内存,只是不创建单元格对象.
+     * 第一行是表头,不导入;整行都为空的行会被跳过.
+     *
+     * @param is                        excel
+     * @param clazz                     每行数据对应的pojo
+     * @param excelColumnNames          excel中每个字段的英文名(应该与pojo对象的字段名一致,顺序与excel一致)
+     * @param checkExcel                检查每一行的数据是否合法,不合法的行跳过,可以为空
+     * @param batchSize                 每批的条数
+     * @param handler                   处理每批数据
+     * @param <T>
+     * @return                          导入的总条数
+     * @throws Exception
+     */
+    public static <T> int importData(InputStream is, Class<T> clazz, final List<String> excelColumnNames, final CheckExcel checkExcel,
+                                     final int batchSize, final ExcelRowHandler<T> handler) throws Exception {
+        Assert.notNull(clazz, "clazz can't be null!");
+        Assert.notEmpty(excelColumnNames, "excelColumnNames can't be empty!");
+        Assert.isTrue(batchSize > 0, "batchSize must be positive!");
+        Assert.notNull(handler, "handler can't be null!");
+        if (is == null) {
+            return 0;
+        }
+
+        final SetterPlan<T> plan = SetterPlan.forClass(clazz, excelColumnNames);
+        final int[] count = new int[1];
+        final List<List<T>> batch = new ArrayList<List<T>>(1);
+        batch.add(new ArrayList<T>(batchSize));
+
+        ExcelRowReader.read(is, excelColumnNames.size(), new ExcelRowReader.RowCallback() {
+            @Override
+            public void row(int rowIndex, String[] values) throws Exception {
+                //第一行是表头
+                if (rowIndex == 0) {
+                    return;
+                }
+                if (checkExcel != null && !checkExcel.check(toMap(excelColumnNames, values))) {
+                    return;
+                }
+
+                List<T> rows = batch.get(0);
+                rows.add(plan.create(values));
+                count[0]++;
+                if (rows.size() >= batchSize) {
+                    handler.handle(rows);
+                    batch.set(0, new ArrayList<T>(batchSize));
+                }
+            }
+        });
+
+        if (!batch.get(0).isEmpty()) {
+            handler.handle(batch.get(0));
+        }
+
+        return count[0];
+    }
+
+    /**
+     * 流式导出excel(.xlsx),逐行从迭代器中取数据写入,内存中只保留最近的{@link ExcelWriter#DEFAULT_WINDOW_SIZE}行.
+     * 导出完成后直接写到输出流,例如:ExcelUtils.exportData(webOutput.getResponse().getOutputStream(), ...)
+     *
+     * @param out                       输出流,不会被关闭
+     * @param rows                      数据,可以是数据库游标等,每个元素是pojo或者Map
+     * @param clazz                     pojo的类型,元素是Map时可以为空
+     * @param excelColumnNames          每一列对应的字段名
+     * @param titles                    表头,为空则不写表头
+     * @param <T>
+     * @return                          导出的数据条数(不含表头)
+     * @throws Exception
+     */
+    public static <T> int exportData(OutputStream out, Iterator<? extends T> rows, Class<T> clazz, List<String> excelColumnNames,
+                                     List<String> titles) throws Exception {
+        Assert.notNull(out, "out can't be null!");
+        Assert.notEmpty(excelColumnNames, "excelColumnNames can't be empty!");
+
+        ExcelWriter writer = new ExcelWriter();
+        try {
+            if (titles != null && !titles.isEmpty()) {
+                writer.writeRow(titles.toArray());
+            }
+
+            Method[] getters = (clazz == null ? null : ColumnExtractor.forClass(clazz).getters(excelColumnNames));
+            Object[] values = new Object[excelColumnNames.size()];
+            int count = 0;
+            while (rows != null && rows.hasNext()) {
+                T row = rows.next();
+                if (row == null) {
+                    continue;
+                }
+
+                for (int i = 0; i < values.length; i++) {
+                    if (row instanceof Map) {
+                        values[i] = ((Map) row).get(excelColumnNames.get(i));
+                    } else {
+                        values[i] = (getters == null || getters[i] == null ? null : getters[i].invoke(row));
+                    }
+                }
+                writer.writeRow(values);
+                count++;
+            }
+
+            writer.finish(out);
+            return count;
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static Map<String, String> toMap(List<String> excelColumnNames, String[] values) {
+        Map<String, String> data = new HashMap<String, String>(excelColumnNames.size() * 4 / 3 + 1);
+        for (int i = 0; i < values.length; i++) {
+            data.put(excelColumnNames.get(i), values[i]);
+        }
+
+        return data;
+    }
+
+    /**
+     * 每个类的getter,按类缓存
+     */
+    private static class ColumnExtractor {
+        private static final ConcurrentMap<Class<?>, ColumnExtractor> EXTRACTORS = new ConcurrentHashMap<Class<?>, ColumnExtractor>();
+
+        private final Map<String, Method> getters = new HashMap<String, Method>();
+
+        private ColumnExtractor(Class<?> clazz) {
+            for (PropertyDescriptor descriptor : org.springframework.beans.BeanUtils.getPropertyDescriptors(clazz)) {
+                Method getter = descriptor.getReadMethod();
+                if (getter != null && !"class".equals(descriptor.getName())) {
+                    ReflectionUtils.makeAccessible(getter);
+                    getters.put(descriptor.getName(), getter);
+                }
+            }
+        }
+
+        static ColumnExtractor forClass(Class<?> clazz) {
+            ColumnExtractor extractor = EXTRACTORS.get(clazz);
+            if (extractor == null) {
+                extractor = new ColumnExtractor(clazz);
+                ColumnExtractor exist = EXTRACTORS.putIfAbsent(clazz, extractor);
+                extractor = (exist != null ? exist : extractor);
+            }
+
+            return extractor;
+        }
+
+        Method[] getters(List<String> columns) {
+            Method[] result = new Method[columns.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = getters.get(columns.get(i));
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * 每个字段对应的setter,只解析一次,不再每个单元格都通过反射查找属性;按类和字段名缓存
+     */
+    private static class SetterPlan<T> {
+        /**
+         * 每个类最多缓存的字段组合个数,超过后不再缓存
+         */
+        private static final int MAX_PLANS_PER_CLASS = 64;
+        private static final ConcurrentMap<Class<?>, ConcurrentMap<List<String>, SetterPlan<?>>> PLANS =
+                new ConcurrentHashMap<Class<?>, ConcurrentMap<List<String>, SetterPlan<?>>>();
+
+        private final Class<T> clazz;
+        private final String[] columns;
+        private final Method[] setters;
+        private final Class<?>[] types;
+
+        @SuppressWarnings("unchecked")
+        static <T> SetterPlan<T> forClass(Class<T> clazz, List<String> excelColumnNames) {
+            ConcurrentMap<List<String>, SetterPlan<?>> plans = PLANS.get(clazz);
+            if (plans == null) {
+                plans = new ConcurrentHashMap<List<String>, SetterPlan<?>>();
+                ConcurrentMap<List<String>, SetterPlan<?>> exist = PLANS.putIfAbsent(clazz, plans);
+                plans = (exist != null ? exist : plans);
+            }
+
+            SetterPlan<?> plan = plans.get(excelColumnNames);
+            if (plan == null) {
+                List<String> columns = Collections.unmodifiableList(new ArrayList<String>(excelColumnNames));
+                plan = new SetterPlan<T>(clazz, columns);
+                if (plans.size() < MAX_PLANS_PER_CLASS) {
+                    SetterPlan<?> exist = plans.putIfAbsent(columns, plan);
+                    plan = (exist != null ? exist : plan);
+                }
+            }
+
+            return (SetterPlan<T>) plan;
+        }
+
+        private SetterPlan(Class<T> clazz, List<String> excelColumnNames) {
+            this.clazz = clazz;
+            this.columns = excelColumnNames.toArray(new String[excelColumnNames.size()]);
+            this.setters = new Method[columns.length];
+            this.types = new Class<?>[columns.length];
+
+            for (int i = 0; i < columns.length; i++) {
+                PropertyDescriptor descriptor = org.springframework.beans.BeanUtils.getPropertyDescriptor(clazz, columns[i]);
+                if (descriptor != null && descriptor.getWriteMethod() != null) {
+                    setters[i] = descriptor.getWriteMethod();
+                    ReflectionUtils.makeAccessible(setters[i]);
+                    types[i] = descriptor.getPropertyType();
+                }
+            }
+        }
+
+        T create(String[] values) throws Exception {
             T entity = clazz.newInstance();
-            for(String column : excelColumnNames) {
-                BeanUtils.setProperty(entity, column, d.get(column));
+            for (int i = 0; i < columns.length; i++) {
+                set(entity, i, values[i]);
             }
 
-            result.add(entity);
+            return entity;
         }
 
-        return result;
+        T create(Map<String, String> data) throws Exception {
+            T entity = clazz.newInstance();
+            for (int i = 0; i < columns.length; i++) {
+                set(entity, i, data.get(columns[i]));
+            }
+
+            return entity;
+        }
+
+        private void set(T entity, int index, String value) throws Exception {
+            if (setters[index] == null) {
+                //嵌套属性等情况交给BeanUtils处理
+                BeanUtils.setProperty(entity, columns[index], value);
+                return;
+            }
+
+            Object converted = (String.class.equals(types[index]) ? value : ConvertUtils.convert(value, types[index]));
+            setters[index].invoke(entity, converted);
+        }
     }
 }
@@ -0,0 +1,261 @@
+package lodsve.base.utils;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 流式生成.xlsx文件.
+ * <p/>
+ * 内存中只保留最近windowSize行(已经转成xml),窗口满了就写到临时文件,所以内存占用与总行数无关.
+ * 写完后调用{@link #finish(OutputStream)}把完整的文件直接写到输出流(例如HttpServletResponse的输出流),最后{@link #close()}删除临时文件.
+ * <pre>
+ * ExcelWriter writer = new ExcelWriter("sheet1", 1000);
+ * try {
+ *     writer.writeRow("name", "age");
+ *     writer.writeRow("sunhao", 18);
+ *     writer.finish(response.getOutputStream());
+ * } finally {
+ *     writer.close();
+ * }
+ * </pre>
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 14:05
+ */
+public class ExcelWriter implements Closeable {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String DATE_PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    public static final int DEFAULT_WINDOW_SIZE = 1000;
+
+    private final String sheetName;
+    private final int windowSize;
+    private final File temp;
+    private final Writer tempWriter;
+    private final StringBuilder window = new StringBuilder(8192);
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_PATTERN);
+
+    private String[] columnNames = new String[0];
+    private int windowRows;
+    private int rowCount;
+    private boolean finished;
+
+    public ExcelWriter() throws IOException {
+        this("sheet1", DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param sheetName  sheet名称
+     * @param windowSize 内存中最多保留的行数
+     */
+    public ExcelWriter(String sheetName, int windowSize) throws IOException {
+        this.sheetName = StringUtils.isEmpty(sheetName) ? "sheet1" : sheetName;
+        this.windowSize = windowSize > 0 ? windowSize : DEFAULT_WINDOW_SIZE;
+        this.temp = File.createTempFile("lodsve-excel-", ".xml");
+        this.tempWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), UTF_8));
+    }
+
+    /**
+     * 写入一行,数字和布尔值按对应类型写入,日期按"yyyy-MM-dd HH:mm:ss"格式化,其他调用toString,null为空单元格
+     *
+     * @param values 每一列的值
+     */
+    public void writeRow(Object... values) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("excel writer is finished!");
+        }
+
+        int row = ++rowCount;
+        window.append("<row r=\"").append(row).append("\">");
+        for (int i = 0; i < values.length; i++) {
+            appendCell(columnName(i), row, values[i]);
+        }
+        window.append("</row>");
+
+        if (++windowRows >= windowSize) {
+            flushWindow();
+        }
+    }
+
+    /**
+     * 已经写入的行数
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 生成完整的.xlsx写到输出流,不会关闭输出流
+     *
+     * @param out 输出流
+     */
+    public void finish(OutputStream out) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("excel writer is finished!");
+        }
+        finished = true;
+        flushWindow();
+        tempWriter.close();
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        writeEntry(zip, "[Content_Types].xml", XML_HEADER +
+                "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">" +
+                "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>" +
+                "<Default Extension=\"xml\" ContentType=\"application/xml\"/>" +
+                "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>" +
+                "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>" +
+                "</Types>");
+        writeEntry(zip, "_rels/.rels", XML_HEADER +
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>" +
+                "</Relationships>");
+        writeEntry(zip, "xl/workbook.xml", XML_HEADER +
+                "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" " +
+                "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">" +
+                "<sheets><sheet name=\"" + escape(sheetName) + "\" sheetId=\"1\" r:id=\"rId1\"/></sheets></workbook>");
+        writeEntry(zip, "xl/_rels/workbook.xml.rels", XML_HEADER +
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet1.xml\"/>" +
+                "</Relationships>");
+
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+        zip.write((XML_HEADER + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>").getBytes(UTF_8));
+        InputStream in = new FileInputStream(temp);
+        try {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                zip.write(buffer, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+        zip.write("</sheetData></worksheet>".getBytes(UTF_8));
+        zip.closeEntry();
+
+        zip.finish();
+        zip.flush();
+    }
+
+    /**
+     * 删除临时文件
+     */
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        try {
+            tempWriter.close();
+        } finally {
+            if (!temp.delete() && temp.exists()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    private void flushWindow() throws IOException {
+        if (window.length() == 0) {
+            return;
+        }
+
+        tempWriter.append(window);
+        window.setLength(0);
+        windowRows = 0;
+    }
+
+    private void appendCell(String column, int row, Object value) {
+        if (value == null) {
+            return;
+        }
+
+        window.append("<c r=\"").append(column).append(row).append('"');
+        if (value instanceof Number) {
+            window.append("><v>").append(value).append("</v></c>");
+        } else if (value instanceof Boolean) {
+            window.append(" t=\"b\"><v>").append((Boolean) value ? '1' : '0').append("</v></c>");
+        } else {
+            String text;
+            if (value instanceof Date) {
+                text = dateFormat.format((Date) value);
+            } else if (value instanceof Calendar) {
+                text = dateFormat.format(((Calendar) value).getTime());
+            } else {
+                text = value.toString();
+            }
+
+            window.append(" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+            appendEscaped(window, text);
+            window.append("</t></is></c>");
+        }
+    }
+
+    private String columnName(int index) {
+        if (index >= columnNames.length) {
+            String[] names = new String[Math.max(index + 1, columnNames.length * 2)];
+            System.arraycopy(columnNames, 0, names, 0, columnNames.length);
+            for (int i = columnNames.length; i < names.length; i++) {
+                StringBuilder name = new StringBuilder();
+                for (int n = i + 1; n > 0; n = (n - 1) / 26) {
+                    name.insert(0, (char) ('A' + (n - 1) % 26));
+                }
+                names[i] = name.toString();
+            }
+            columnNames = names;
+        }
+
+        return columnNames[index];
+    }
+
+    private static void writeEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(UTF_8));
+        zip.closeEntry();
+    }
+
+    private static String escape(String text) {
+        StringBuilder result = new StringBuilder(text.length() + 16);
+        appendEscaped(result, text);
+        return result.toString();
+    }
+
+    /**
+     * 转义xml特殊字符,去掉xml中不允许出现的控制字符
+     */
+    private static void appendEscaped(StringBuilder out, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    out.append("&amp;");
+                    break;
+                case '<':
+                    out.append("&lt;");
+                    break;
+                case '>':
+                    out.append("&gt;");
+                    break;
+                case '"':
+                    out.append("&quot;");
+                    break;
+                default:
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        out.append(c);
+                    }
+            }
+        }
+    }
+}
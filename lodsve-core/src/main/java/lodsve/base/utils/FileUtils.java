@@ -3,12 +3,34 @@ package lodsve.base.utils;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
 
 import java.io.*;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * 文件操作的工具类
@@ -429,7 +451,7 @@ public class FileUtils {
     }
 
     /**
-     * 获取文件夹的大小
+     * 获取文件夹的大小(跟随符号链接),文件很多时可以使用{@link #getDirectorySizeParallel(String)}
      * 
      * @param file  文件夹
      * @return
@@ -439,21 +461,20 @@ public class FileUtils {
             logger.warn("given file '{}' is null!", file);
             return Long.valueOf(0);
         }
-        Long size = 0L;
-        if(file.isDirectory()){
-            File files[] = file.listFiles();
-            for(int i = 0; i < files.length; i++){
-                if(files[i].isDirectory()){
-                    size = size + getDirectorySize(files[i]);
-                } else {
-                    size += getFileSize(files[i]);
+
+        final long[] size = new long[1];
+        walkFollowLinks(file.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                // 失效的符号链接不计算大小
+                if (!attrs.isSymbolicLink()) {
+                    size[0] += attrs.size();
                 }
+                return FileVisitResult.CONTINUE;
             }
-        } else {
-            size += file.length();
-        }
+        });
 
-        return size;
+        return size[0];
     }
 
     /**
@@ -473,7 +494,8 @@ public class FileUtils {
     }
 
     /**
-     * 遍历指定文件夹下的文件(可以指定扩展名)
+     * 遍历指定文件夹下的文件(可以指定扩展名,跟随符号链接),文件很多时可以使用{@link #iterateFiles(String, String, String...)}
+     * 或者{@link #getFilesParallel(String, String, String...)}
      *
      * @param directory         文件夹
      * @param extName           扩展名
@@ -485,23 +507,16 @@ public class FileUtils {
             return Collections.EMPTY_LIST;
         }
 
-        List<File> files = new ArrayList<File>();
-        File file = new File(directory);
-        if(file.isDirectory()){
-            //是文件夹
-            File[] underFiles = file.listFiles();       //获取文件夹下所有的文件或者文件夹
-            for(File uf : underFiles){
-                if(!uf.isDirectory()){
-                    logger.debug("scan file '{}'!", uf.getName());
-                    addFileToList(files, uf, extName);
-                } else {
-                    files.addAll(getFileUnderDirectory(uf.getAbsolutePath(), extName));
-                }
+        final List<File> files = new ArrayList<File>();
+        final String ext = extName;
+        walkFollowLinks(Paths.get(directory), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                logger.debug("scan file '{}'!", file.getFileName());
+                addFileToList(files, file.toFile(), ext);
+                return FileVisitResult.CONTINUE;
             }
-        } else {
-            logger.debug("scan file '{}'!", file.getName());
-            addFileToList(files, file, extName);
-        }
+        });
 
         return files;
     }
@@ -523,6 +538,418 @@ public class FileUtils {
         }
     }
 
+    /**
+     * 惰性遍历文件夹下的文件(不包括文件夹),边遍历边返回,不会一次把所有文件放到内存中.
+     * <p/>
+     * 基于{@link DirectoryStream},深度优先,不跟随符号链接(符号链接作为文件返回).遍历完自动关闭,中途退出需要调用{@link FileIterator#close()}
+     * <pre>
+     * FileIterator files = FileUtils.iterateFiles("/data/upload", "*.{jpg,png}");
+     * try {
+     *     while (files.hasNext()) {
+     *         Path file = files.next();
+     *     }
+     * } finally {
+     *     files.close();
+     * }
+     * </pre>
+     *
+     * @param directory 文件夹
+     * @param glob      glob表达式,不包含"/"时匹配文件名,否则匹配相对directory的路径(如"2016/**&#47;*.jpg"),为空不过滤
+     * @param extNames  扩展名(如".jpg"),满足其中一个即可,为空不过滤
+     * @return 文件迭代器
+     */
+    public static FileIterator iterateFiles(String directory, String glob, String... extNames) {
+        if (StringUtils.isEmpty(directory) || !new File(directory).exists()) {
+            logger.error("given no path or not exist!");
+            return new FileIterator(null, null);
+        }
+
+        Path root = Paths.get(directory);
+        return new FileIterator(root, new PathFilter(root, glob, extNames));
+    }
+
+    /**
+     * 使用fork-join并行遍历文件夹下的文件,每个文件夹一个任务,适合文件很多的文件夹.
+     * <p/>
+     * 不跟随符号链接,handler会在多个线程中同时调用,需要线程安全
+     *
+     * @param directory 文件夹
+     * @param glob      glob表达式,同{@link #iterateFiles(String, String, String...)}
+     * @param extNames  扩展名,满足其中一个即可,为空不过滤
+     * @param handler   处理符合条件的文件
+     * @return 符合条件的文件个数
+     */
+    public static long walkFilesParallel(String directory, String glob, String[] extNames, final FileHandler handler) {
+        Assert.notNull(handler);
+        if (StringUtils.isEmpty(directory) || !new File(directory).exists()) {
+            logger.error("given no path or not exist!");
+            return 0;
+        }
+
+        Path root = Paths.get(directory);
+        final PathFilter filter = new PathFilter(root, glob, extNames);
+        return walkParallel(root, true, new Walker() {
+            @Override
+            long visitFile(Path file, BasicFileAttributes attrs) {
+                if (!filter.accept(file)) {
+                    return 0;
+                }
+
+                handler.handle(file, attrs);
+                return 1;
+            }
+        });
+    }
+
+    /**
+     * 并行获取文件夹下符合条件的文件,顺序不固定
+     *
+     * @param directory 文件夹
+     * @param glob      glob表达式,同{@link #iterateFiles(String, String, String...)}
+     * @param extNames  扩展名,满足其中一个即可,为空不过滤
+     * @return 文件
+     */
+    public static List<Path> getFilesParallel(String directory, String glob, String... extNames) {
+        final Queue<Path> files = new ConcurrentLinkedQueue<>();
+        walkFilesParallel(directory, glob, extNames, new FileHandler() {
+            @Override
+            public void handle(Path file, BasicFileAttributes attrs) {
+                files.add(file);
+            }
+        });
+
+        return new ArrayList<>(files);
+    }
+
+    /**
+     * 并行获取文件夹的大小,不跟随符号链接(只计算符号链接本身的大小)
+     *
+     * @param directory 文件夹
+     * @return 大小,单位字节
+     */
+    public static long getDirectorySizeParallel(String directory) {
+        if (StringUtils.isEmpty(directory) || !new File(directory).exists()) {
+            logger.warn("given file '{}' is null!", directory);
+            return 0;
+        }
+
+        return walkParallel(Paths.get(directory), true, new Walker() {
+            @Override
+            long visitFile(Path file, BasicFileAttributes attrs) {
+                return attrs.size();
+            }
+        });
+    }
+
+    /**
+     * 并行删除文件或者文件夹(以及下面的所有文件),符号链接只删除链接本身.
+     * <p/>
+     * 某个文件删除失败时继续删除其他文件
+     *
+     * @param dirPath 文件或文件夹路径
+     * @return 是否全部删除成功
+     */
+    public static boolean deleteFilesParallel(String dirPath) {
+        if (StringUtils.isEmpty(dirPath)) {
+            logger.error("given filePath '{}' is null!", dirPath);
+            return false;
+        }
+
+        long failures = walkParallel(Paths.get(dirPath), false, new Walker() {
+            @Override
+            long visitFile(Path file, BasicFileAttributes attrs) {
+                return delete(file);
+            }
+
+            @Override
+            long postVisitDirectory(Path dir) {
+                return delete(dir);
+            }
+
+            @Override
+            long visitFailed(Path path, IOException e) {
+                super.visitFailed(path, e);
+                return 1;
+            }
+
+            private long delete(Path path) {
+                try {
+                    Files.delete(path);
+                    return 0;
+                } catch (IOException e) {
+                    logger.warn("delete '{}' error: {}", path, e.toString());
+                    return 1;
+                }
+            }
+        });
+
+        return failures == 0;
+    }
+
+    /**
+     * 跟随符号链接遍历,遇到循环的符号链接或者无法读取的文件夹时跳过
+     */
+    private static void walkFollowLinks(Path start, final FileVisitor<Path> visitor) {
+        try {
+            Files.walkFileTree(start, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    return visitor.visitFile(file, attrs);
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    logger.warn("scan file '{}' error: {}", file, e.toString());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param followRoot root是指向文件夹的符号链接时,是否遍历链接的文件夹
+     */
+    private static long walkParallel(Path root, boolean followRoot, Walker walker) {
+        BasicFileAttributes attrs;
+        try {
+            attrs = followRoot ? Files.readAttributes(root, BasicFileAttributes.class) :
+                    Files.readAttributes(root, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return walker.visitFailed(root, e);
+        }
+
+        if (!attrs.isDirectory()) {
+            return walker.visitFile(root, attrs);
+        }
+
+        return WalkPool.POOL.invoke(new WalkTask(root, walker));
+    }
+
+    /**
+     * 处理遍历到的文件
+     */
+    public interface FileHandler {
+        /**
+         * 处理文件
+         *
+         * @param file  文件
+         * @param attrs 文件属性
+         */
+        void handle(Path file, BasicFileAttributes attrs);
+    }
+
+    /**
+     * 惰性的文件迭代器,用一个栈保存每一层打开的{@link DirectoryStream}
+     */
+    public static final class FileIterator implements Iterator<Path>, Closeable {
+        private final PathFilter filter;
+        private final Deque<DirectoryStream<Path>> streams = new ArrayDeque<>();
+        private final Deque<Iterator<Path>> iterators = new ArrayDeque<>();
+        private Path next;
+
+        private FileIterator(Path root, PathFilter filter) {
+            this.filter = filter;
+            if (root == null) {
+                return;
+            }
+
+            if (Files.isDirectory(root)) {
+                open(root);
+            } else if (filter.accept(root)) {
+                next = root;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !iterators.isEmpty()) {
+                Path entry;
+                try {
+                    Iterator<Path> iterator = iterators.peek();
+                    if (!iterator.hasNext()) {
+                        closeCurrent();
+                        continue;
+                    }
+                    entry = iterator.next();
+                } catch (DirectoryIteratorException e) {
+                    logger.warn("scan directory error: {}", e.getCause().toString());
+                    closeCurrent();
+                    continue;
+                }
+
+                if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                    open(entry);
+                } else if (filter.accept(entry)) {
+                    next = entry;
+                }
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public Path next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Path result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            while (!iterators.isEmpty()) {
+                closeCurrent();
+            }
+        }
+
+        private void open(Path dir) {
+            try {
+                DirectoryStream<Path> stream = Files.newDirectoryStream(dir);
+                streams.push(stream);
+                iterators.push(stream.iterator());
+            } catch (IOException e) {
+                logger.warn("scan directory '{}' error: {}", dir, e.toString());
+            }
+        }
+
+        private void closeCurrent() {
+            iterators.pop();
+            IOUtils.closeQuietly(streams.pop());
+        }
+    }
+
+    /**
+     * 文件过滤:扩展名和glob
+     */
+    private static final class PathFilter {
+        private final Path root;
+        private final PathMatcher matcher;
+        private final boolean matchName;
+        private final String[] extNames;
+
+        PathFilter(Path root, String glob, String[] extNames) {
+            this.root = root;
+            this.matcher = StringUtils.isEmpty(glob) ? null : root.getFileSystem().getPathMatcher("glob:" + glob);
+            this.matchName = StringUtils.isEmpty(glob) || !glob.contains("/");
+
+            List<String> exts = new ArrayList<>();
+            if (extNames != null) {
+                for (String extName : extNames) {
+                    if (StringUtils.isNotEmpty(extName)) {
+                        exts.add(extName);
+                    }
+                }
+            }
+            this.extNames = exts.toArray(new String[exts.size()]);
+        }
+
+        boolean accept(Path file) {
+            Path name = file.getFileName();
+            if (extNames.length > 0) {
+                String fileName = String.valueOf(name);
+                boolean matched = false;
+                for (int i = 0; i < extNames.length && !matched; i++) {
+                    matched = fileName.endsWith(extNames[i]);
+                }
+                if (!matched) {
+                    return false;
+                }
+            }
+
+            return matcher == null || matcher.matches(matchName ? name : root.relativize(file));
+        }
+    }
+
+    /**
+     * 并行遍历时对文件和文件夹的处理,返回值会累加
+     */
+    private abstract static class Walker {
+        abstract long visitFile(Path file, BasicFileAttributes attrs);
+
+        /**
+         * 文件夹下的文件都处理完后调用
+         */
+        long postVisitDirectory(Path dir) {
+            return 0;
+        }
+
+        long visitFailed(Path path, IOException e) {
+            logger.warn("scan file '{}' error: {}", path, e.toString());
+            return 0;
+        }
+    }
+
+    /**
+     * 处理一个文件夹:文件直接处理,子文件夹fork出新的任务
+     */
+    private static final class WalkTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 3955449823680290706L;
+
+        private final Path dir;
+        private final Walker walker;
+
+        WalkTask(Path dir, Walker walker) {
+            this.dir = dir;
+            this.walker = walker;
+        }
+
+        @Override
+        protected Long compute() {
+            long result = 0;
+            List<WalkTask> tasks = new ArrayList<>();
+            DirectoryStream<Path> stream = null;
+            try {
+                stream = Files.newDirectoryStream(dir);
+                for (Path entry : stream) {
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        result += walker.visitFailed(entry, e);
+                        continue;
+                    }
+
+                    if (attrs.isDirectory()) {
+                        WalkTask task = new WalkTask(entry, walker);
+                        task.fork();
+                        tasks.add(task);
+                    } else {
+                        result += walker.visitFile(entry, attrs);
+                    }
+                }
+            } catch (IOException e) {
+                result += walker.visitFailed(dir, e);
+            } catch (DirectoryIteratorException e) {
+                result += walker.visitFailed(dir, e.getCause());
+            } finally {
+                IOUtils.closeQuietly(stream);
+            }
+
+            for (int i = tasks.size() - 1; i >= 0; i--) {
+                result += tasks.get(i).join();
+            }
+
+            return result + walker.postVisitDirectory(dir);
+        }
+    }
+
+    /**
+     * 并行遍历使用的线程池,第一次使用时创建;遍历主要是IO,线程数取CPU核数的2倍
+     */
+    private static final class WalkPool {
+        static final ForkJoinPool POOL = new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    }
+
     /**
      * Reads the contents of a file into a String.
      *
@@ -2,24 +2,30 @@ package lodsve.base.utils;
 
 import org.apache.html.dom.HTMLDocumentImpl;
 import org.cyberneko.html.parsers.DOMFragmentParser;
+import org.cyberneko.html.parsers.SAXParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.DocumentFragment;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXNotRecognizedException;
 import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.helpers.DefaultHandler;
 
 import javax.xml.transform.*;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -42,6 +48,22 @@ public class HTMLUtils {
     private static final Logger logger = LoggerFactory.getLogger(HTMLUtils.class);
     private static final String DEFAULT_ENCODING = "utf-8";
 	
+    private static final String[] RAW_TEXT_TAGS_TO_REMOVE = {"xml", "style", "script"};
+    /**
+     * 没有结束标签的元素
+     */
+    private static final Set<String> VOID_ELEMENTS = new HashSet<>(Arrays.asList("area", "base", "br", "col", "embed",
+            "hr", "img", "input", "link", "meta", "param", "source", "wbr"));
+
+    private static final Pattern XML_TAG = Pattern.compile("(?s)<xml>(.*?)</xml>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern STYLE_TAG = Pattern.compile("(?s)<style[^>]*>(.*?)</style>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SCRIPT_TAG = Pattern.compile("(?s)<script[^>]*>(.*?)</script>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ALL_TAG = Pattern.compile("(?s)<[^>]+>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern HTML_CHARACTER = Pattern.compile("&[\\w]+;", Pattern.CASE_INSENSITIVE);
+    private static final Pattern MULTI_SPACE = Pattern.compile("(?s)[\\s]{2,}");
+    private static final Pattern FIRST_SPACE = Pattern.compile("^[\\s]+");
+    private static final Pattern IMAGE_SRC = Pattern.compile("src=\"([^\"]+)\"");
+
 	private static DOMFragmentParser fragmentParser = new DOMFragmentParser();
 
     /**
@@ -84,8 +106,7 @@ public class HTMLUtils {
 
         StringBuffer result = new StringBuffer(html.length());
         // remove XML tag.
-        Pattern pattern = Pattern.compile("(?s)<xml>(.*?)</xml>", Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(html);
+        Matcher matcher = XML_TAG.matcher(html);
 
         while (matcher.find()) {
             matcher.appendReplacement(result, StringUtils.EMPTY);
@@ -93,8 +114,7 @@ public class HTMLUtils {
 
         matcher.appendTail(result);
         // style tag.
-        pattern = Pattern.compile("(?s)<style[^>]*>(.*?)</style>", Pattern.CASE_INSENSITIVE);
-        matcher = pattern.matcher(result.toString());
+        matcher = STYLE_TAG.matcher(result.toString());
         result.setLength(0);
 
         while (matcher.find()) {
@@ -103,8 +123,7 @@ public class HTMLUtils {
 
         matcher.appendTail(result);
         // script tag.
-        pattern = Pattern.compile("(?s)<script[^>]*>(.*?)</script>", Pattern.CASE_INSENSITIVE);
-        matcher = pattern.matcher(result.toString());
+        matcher = SCRIPT_TAG.matcher(result.toString());
         result.setLength(0);
 
         while (matcher.find()) {
@@ -113,8 +132,7 @@ public class HTMLUtils {
 
         matcher.appendTail(result);
         // all the tag.
-        pattern = Pattern.compile("(?s)<[^>]+>", Pattern.CASE_INSENSITIVE);
-        matcher = pattern.matcher(result.toString());
+        matcher = ALL_TAG.matcher(result.toString());
         result.setLength(0);
 
         while (matcher.find()) {
@@ -123,8 +141,7 @@ public class HTMLUtils {
 
         matcher.appendTail(result);
         // remove HTML characters, such as: &xxx;
-        pattern = Pattern.compile("&[\\w]+;", Pattern.CASE_INSENSITIVE);
-        matcher = pattern.matcher(result.toString());
+        matcher = HTML_CHARACTER.matcher(result.toString());
         result.setLength(0);
 
         while (matcher.find()) {
@@ -133,8 +150,7 @@ public class HTMLUtils {
 
         matcher.appendTail(result);
         // replace multi-space character with single space.
-        pattern = Pattern.compile("(?s)[\\s]{2,}");
-        matcher = pattern.matcher(result.toString());
+        matcher = MULTI_SPACE.matcher(result.toString());
         result.setLength(0);
 
         while (matcher.find()) {
@@ -143,8 +159,7 @@ public class HTMLUtils {
 
         matcher.appendTail(result);
         // first letter.
-        pattern = Pattern.compile("^[\\s]+");
-        matcher = pattern.matcher(result.toString());
+        matcher = FIRST_SPACE.matcher(result.toString());
         result.setLength(0);
 
         if (matcher.find()) {
@@ -192,6 +207,24 @@ public class HTMLUtils {
         return getRawText(length, html, StringUtils.EMPTY);
     }
 
+    /**
+     * 流式获取html中前length个字符(非ASCII字符算两个),剩余字符用suffix代替.
+     * 边解析边截取,达到长度后不再读取剩下的内容;xml、style、script中的内容会被去掉,连续空白合并为一个空格.
+     * 与{@link #getRawText(int, String, String)}不同的是,html实体会被解码而不是去掉.
+     *
+     * @param length 需要截取的长度,小于1时不截取
+     * @param html   html
+     * @param suffix 代替文本
+     * @return 纯文本
+     * @throws IOException
+     */
+    public static String getRawText(final int length, final Reader html, final String suffix) throws IOException {
+        RawTextHandler handler = new RawTextHandler(length, suffix);
+        parse(new InputSource(html), null, handler);
+
+        return handler.getText();
+    }
+
     public static String getText(String html) {
         return getText(html, DEFAULT_ENCODING);
     }
@@ -235,13 +268,81 @@ public class HTMLUtils {
             return StringUtils.EMPTY;
         }
 
-        final StringBuffer result = new StringBuffer();
-
-        loopGetText(createNode(is, encoding), result);
+        StringWriter result = new StringWriter();
+        InputSource source = new InputSource(is);
+        try {
+            parse(source, encoding, new TextHandler(result, DEFAULT_TAGS_TO_REMOVE, null));
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+        }
 
         return result.toString();
     }
-    
+
+    /**
+     * 流式获取纯文本,边解析边写出,不构建文档树,内存占用只与标签嵌套深度有关.
+     * script、style中的内容会被去掉.
+     *
+     * @param html      html
+     * @param out       纯文本输出
+     * @param imageUrls 不为空时,同时收集img标签的src(去掉fckeditor的表情图片)
+     * @throws IOException
+     */
+    public static void getText(Reader html, Writer out, List<String> imageUrls) throws IOException {
+        parse(new InputSource(html), null, new TextHandler(out, DEFAULT_TAGS_TO_REMOVE, imageUrls));
+    }
+
+    /**
+     * 流式清理html,边解析边写出,不构建文档树,内存占用只与标签嵌套深度有关.
+     * 去掉tagsToRemove标签(包括其中的内容)和attributesToRemove属性(object、embed、param标签的属性不处理),输出补全后的html.
+     *
+     * @param html               html
+     * @param out                清理后的html输出
+     * @param tagsToRemove       需要去掉的标签,为空时去掉script、style
+     * @param attributesToRemove 需要去掉的属性,为空时去掉id、name
+     * @param imageUrls          不为空时,同时收集img标签的src(去掉fckeditor的表情图片)
+     * @throws IOException
+     */
+    public static void cleanHtml(Reader html, Writer out, String[] tagsToRemove, String[] attributesToRemove,
+                                 List<String> imageUrls) throws IOException {
+        parse(new InputSource(html), null, new CleanHandler(out, tagsToRemove == null ? DEFAULT_TAGS_TO_REMOVE : tagsToRemove,
+                attributesToRemove == null ? DEFAULT_ATTRS_TO_REMOVE : attributesToRemove, imageUrls));
+    }
+
+    private static void parse(InputSource source, String encoding, DefaultHandler handler) throws IOException {
+        SAXParser parser = newSaxParser();
+        try {
+            parser.setProperty("http://cyberneko.org/html/properties/default-encoding",
+                    StringUtils.isBlank(encoding) ? DEFAULT_ENCODING : encoding);
+            parser.setContentHandler(handler);
+            parser.parse(source);
+        } catch (StopParsingException e) {
+            // 已经拿到需要的内容
+        } catch (SAXException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * 流式解析用的parser,每次解析创建一个(比解析本身开销小很多),不放在ThreadLocal中,避免容器线程持有应用的类
+     */
+    private static SAXParser newSaxParser() {
+        SAXParser parser = new SAXParser();
+        try {
+            parser.setFeature("http://cyberneko.org/html/features/balance-tags", true);
+            parser.setFeature("http://cyberneko.org/html/features/balance-tags/document-fragment", true);
+            parser.setFeature("http://cyberneko.org/html/features/scanner/ignore-specified-charset", false);
+            parser.setProperty("http://cyberneko.org/html/properties/names/elems", "lower");
+            parser.setProperty("http://cyberneko.org/html/properties/names/attrs", "lower");
+        } catch (SAXNotRecognizedException e) {
+            logger.error(e.getMessage(), e);
+        } catch (SAXNotSupportedException e) {
+            logger.error(e.getMessage(), e);
+        }
+
+        return parser;
+    }
+
     /**
      * create the node.
      *
@@ -542,10 +643,7 @@ public class HTMLUtils {
     public static List getImageUrls(String content) {
         if (StringUtils.isNotEmpty(content)) {
             List resultList = new ArrayList();
-            String regxp = "src=\"([^\"]+)\"";
-
-            Pattern p = Pattern.compile(regxp);
-            Matcher m = p.matcher(content);
+            Matcher m = IMAGE_SRC.matcher(content);
 
             while (m.find()) {
                 if (m.group(1).indexOf("fckeditor") == -1)
@@ -555,4 +653,275 @@ public class HTMLUtils {
         }
         return Collections.EMPTY_LIST;
     }
+
+    private static boolean contains(String[] names, String name) {
+        for (String n : names) {
+            if (n.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * 提前结束解析
+     */
+    private static final class StopParsingException extends SAXException {
+        private static final long serialVersionUID = 1684991015698525364L;
+
+        StopParsingException() {
+            super("stop parsing");
+        }
+    }
+
+    /**
+     * 跳过指定标签(包括其中的内容),收集图片地址
+     */
+    private abstract static class StreamingHandler extends DefaultHandler {
+        private final String[] tagsToRemove;
+        private final List<String> imageUrls;
+        private int skipDepth;
+
+        StreamingHandler(String[] tagsToRemove, List<String> imageUrls) {
+            this.tagsToRemove = tagsToRemove;
+            this.imageUrls = imageUrls;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            if (skipDepth > 0 || contains(tagsToRemove, qName)) {
+                skipDepth++;
+                return;
+            }
+
+            if (imageUrls != null && "img".equals(qName)) {
+                String src = attributes.getValue("src");
+                if (StringUtils.isNotEmpty(src) && !src.contains("fckeditor")) {
+                    imageUrls.add(src);
+                }
+            }
+            start(qName, attributes);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (skipDepth > 0) {
+                skipDepth--;
+                return;
+            }
+            end(qName);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            if (skipDepth == 0) {
+                text(ch, start, length);
+            }
+        }
+
+        void start(String name, Attributes attributes) throws SAXException {
+        }
+
+        void end(String name) throws SAXException {
+        }
+
+        abstract void text(char[] ch, int start, int length) throws SAXException;
+
+        static SAXException wrap(IOException e) {
+            return new SAXException(e);
+        }
+    }
+
+    /**
+     * 输出纯文本
+     */
+    private static class TextHandler extends StreamingHandler {
+        private final Writer out;
+
+        TextHandler(Writer out, String[] tagsToRemove, List<String> imageUrls) {
+            super(tagsToRemove, imageUrls);
+            this.out = out;
+        }
+
+        @Override
+        void text(char[] ch, int start, int length) throws SAXException {
+            try {
+                out.write(ch, start, length);
+            } catch (IOException e) {
+                throw wrap(e);
+            }
+        }
+    }
+
+    /**
+     * 截取纯文本,与getRawText(int, String, String)的规则一致:合并连续空白,去掉开头的空白,非ASCII字符长度算两个
+     */
+    private static class RawTextHandler extends StreamingHandler {
+        private final int length;
+        private final String suffix;
+        private final StringBuilder result = new StringBuilder();
+        private int count;
+        private char space;
+        private int spaces;
+        private boolean stopped;
+
+        RawTextHandler(int length, String suffix) {
+            super(RAW_TEXT_TAGS_TO_REMOVE, null);
+            this.length = length;
+            this.suffix = suffix;
+        }
+
+        @Override
+        void text(char[] ch, int start, int len) throws SAXException {
+            for (int i = start; i < start + len; i++) {
+                char c = ch[i];
+                // 与正则中的\s一致
+                if (c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r') {
+                    space = c;
+                    spaces++;
+                    continue;
+                }
+
+                appendSpaces();
+                append(c);
+            }
+        }
+
+        private void appendSpaces() throws StopParsingException {
+            if (spaces > 0) {
+                char c = spaces > 1 ? ' ' : space;
+                spaces = 0;
+                if (result.length() > 0) {
+                    append(c);
+                }
+            }
+        }
+
+        private void append(char c) throws StopParsingException {
+            count += (c > 128 ? 2 : 1);
+            if (length >= 1 && count > length) {
+                stopped = true;
+                if (suffix != null) {
+                    result.append(suffix);
+                }
+                throw new StopParsingException();
+            }
+            result.append(c);
+        }
+
+        String getText() {
+            if (!stopped) {
+                try {
+                    appendSpaces();
+                } catch (StopParsingException e) {
+                    // 末尾的空白超出长度
+                }
+            }
+
+            return result.toString();
+        }
+    }
+
+    /**
+     * 输出清理后的html
+     */
+    private static class CleanHandler extends StreamingHandler {
+        private final Writer out;
+        private final String[] attributesToRemove;
+
+        CleanHandler(Writer out, String[] tagsToRemove, String[] attributesToRemove, List<String> imageUrls) {
+            super(tagsToRemove, imageUrls);
+            this.out = out;
+            this.attributesToRemove = attributesToRemove;
+        }
+
+        @Override
+        void start(String name, Attributes attributes) throws SAXException {
+            if ("html".equals(name) || "body".equals(name)) {
+                return;
+            }
+
+            try {
+                boolean cleanAttribute = !contains(DEFAULT_TAGS_TO_NOT_REMOVE_TAG_NAME, name);
+                out.write('<');
+                out.write(name);
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    String attribute = attributes.getQName(i);
+                    if (cleanAttribute && contains(attributesToRemove, attribute)) {
+                        continue;
+                    }
+
+                    out.write(' ');
+                    out.write(attribute);
+                    out.write("=\"");
+                    escape(attributes.getValue(i), true);
+                    out.write('"');
+                }
+                out.write('>');
+            } catch (IOException e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        void end(String name) throws SAXException {
+            if ("html".equals(name) || "body".equals(name) || VOID_ELEMENTS.contains(name)) {
+                return;
+            }
+
+            try {
+                out.write("</");
+                out.write(name);
+                out.write('>');
+            } catch (IOException e) {
+                throw wrap(e);
+            }
+        }
+
+        @Override
+        void text(char[] ch, int start, int length) throws SAXException {
+            try {
+                int last = start;
+                for (int i = start; i < start + length; i++) {
+                    String entity = entity(ch[i], false);
+                    if (entity != null) {
+                        out.write(ch, last, i - last);
+                        out.write(entity);
+                        last = i + 1;
+                    }
+                }
+                out.write(ch, last, start + length - last);
+            } catch (IOException e) {
+                throw wrap(e);
+            }
+        }
+
+        private void escape(String value, boolean attribute) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                String entity = entity(c, attribute);
+                if (entity != null) {
+                    out.write(entity);
+                } else {
+                    out.write(c);
+                }
+            }
+        }
+
+        private static String entity(char c, boolean attribute) {
+            switch (c) {
+                case '&':
+                    return "&amp;";
+                case '<':
+                    return "&lt;";
+                case '>':
+                    return "&gt;";
+                case '"':
+                    return attribute ? "&quot;" : null;
+                default:
+                    return null;
+            }
+        }
+    }
 }
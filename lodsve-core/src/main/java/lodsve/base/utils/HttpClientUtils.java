@@ -4,22 +4,40 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpMethodBase;
 import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.NameValuePair;
 import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
 import org.apache.commons.httpclient.params.HttpMethodParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * HttpClient的工具类.
+ * <p/>
+ * 所有请求共用一个带连接池的HttpClient,连接保持keep-alive复用,空闲连接由后台线程定时关闭.
+ * 连接池和超时可以通过{@link #configure(Settings)}修改(建议在启动时调用),异步请求在有界线程池中执行.
+ * 连接池第一次使用时创建,应用卸载时需要调用{@link #shutdown()}(已在{@link lodsve.base.config.core.ParamsHomeListener}中调用).
  *
  * @author sunhao(sunhao.java@gmail.com)
  * @version V1.0 13-12-11 下午6:50
@@ -36,12 +54,59 @@ public class HttpClientUtils {
      */
     private static final int DEFAULT_TIMEOUT = 5000;
 
+    private static final AtomicLong REQUESTS = new AtomicLong();
+    private static final AtomicLong FAILURES = new AtomicLong();
+    private static final AtomicLong TOTAL_LATENCY = new AtomicLong();
+    private static final AtomicLong MAX_LATENCY = new AtomicLong();
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+
+    /**
+     * 第一次使用时创建,{@link #shutdown()}后为null,再次使用时重新创建
+     */
+    private static volatile Pool pool;
+    private static Settings settings = new Settings();
+
     /**
      * 构造器私有化
      */
     private HttpClientUtils() {
     }
 
+    /**
+     * 修改连接池和超时设置,新的请求立即使用新的连接池,旧的连接池在已提交的请求完成后在后台关闭
+     *
+     * @param settings 设置
+     */
+    public static void configure(Settings settings) {
+        Pool old;
+        synchronized (HttpClientUtils.class) {
+            HttpClientUtils.settings = settings;
+            old = pool;
+            pool = new Pool(settings);
+        }
+
+        if (old != null) {
+            old.closeAsync();
+        }
+    }
+
+    /**
+     * 关闭连接池、空闲连接清理线程和异步请求的线程池,等待已提交的请求完成(最多连接超时加读取超时的时间).
+     * <p/>
+     * 应用卸载时调用(例如在{@link javax.servlet.ServletContextListener#contextDestroyed}中),之后再发送请求会重新创建连接池
+     */
+    public static void shutdown() {
+        Pool old;
+        synchronized (HttpClientUtils.class) {
+            old = pool;
+            pool = null;
+        }
+
+        if (old != null) {
+            old.close();
+        }
+    }
+
     /**
      * 发送一个post请求
      *
@@ -54,7 +119,6 @@ public class HttpClientUtils {
         PostMethod method = new PostMethod(url);
 
         method.getParams().setParameter(HttpMethodParams.HTTP_CONTENT_CHARSET, DEFAULT_CHARSET);
-        method.getParams().setParameter(HttpMethodParams.SO_TIMEOUT, DEFAULT_TIMEOUT);
 
         if (MapUtils.isNotEmpty(params)) {
             List<NameValuePair> pairs = new ArrayList<>(params.size());
@@ -84,11 +148,118 @@ public class HttpClientUtils {
         HttpMethodParams hmp = method.getParams();
 
         hmp.setParameter(HttpMethodParams.HTTP_CONTENT_CHARSET, DEFAULT_CHARSET);
-        hmp.setParameter(HttpMethodParams.SO_TIMEOUT, DEFAULT_TIMEOUT);
 
         return executeMethod(method);
     }
 
+    /**
+     * 异步发送一个get请求
+     *
+     * @param url 地址
+     * @return 返回结果
+     */
+    public static Future<String> getAsync(final String url) {
+        return submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return get(url);
+            }
+        });
+    }
+
+    /**
+     * 异步发送一个post请求
+     *
+     * @param url    地址
+     * @param params 参数
+     * @return 返回结果
+     */
+    public static Future<String> postAsync(final String url, final Map<String, String> params) {
+        return submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return post(url, params);
+            }
+        });
+    }
+
+    /**
+     * 批量发送get请求,同时执行的请求数不超过{@link Settings#getAsyncThreads()},等待队列满了时在调用线程中执行
+     *
+     * @param urls 地址
+     * @return 与urls顺序一致的结果
+     */
+    public static List<Future<String>> getAll(Collection<String> urls) {
+        List<Future<String>> futures = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            futures.add(getAsync(url));
+        }
+
+        return futures;
+    }
+
+    /**
+     * 连接池和请求耗时的统计
+     *
+     * @return 统计信息
+     */
+    public static Metrics getMetrics() {
+        // 不通过pool()获取,关闭后查看统计不会重新创建连接池
+        Pool current = pool;
+        if (current == null) {
+            return new Metrics(REQUESTS.get(), FAILURES.get(), TOTAL_LATENCY.get(), MAX_LATENCY.get(), ACTIVE.get(), 0, 0, 0);
+        }
+
+        return new Metrics(REQUESTS.get(), FAILURES.get(), TOTAL_LATENCY.get(), MAX_LATENCY.get(), ACTIVE.get(),
+                current.connectionManager.getConnectionsInPool(), current.executor.getActiveCount(), current.executor.getQueue().size());
+    }
+
+    private static Pool pool() {
+        Pool current = pool;
+        if (current == null) {
+            synchronized (HttpClientUtils.class) {
+                if (pool == null) {
+                    pool = new Pool(settings);
+                }
+                current = pool;
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * 获取用于执行请求的连接池,并计入它正在执行的请求数.
+     * <p/>
+     * 先计数再确认连接池没有被替换:替换后关闭旧连接池时一定能看到这个计数,不会在请求执行中关闭连接
+     */
+    private static Pool acquire() {
+        while (true) {
+            Pool current = pool();
+            current.active.incrementAndGet();
+            if (current == pool) {
+                return current;
+            }
+            current.active.decrementAndGet();
+        }
+    }
+
+    /**
+     * 提交异步请求,提交时连接池刚好被替换(旧的线程池会拒绝)则提交到新的连接池
+     */
+    private static <T> Future<T> submit(Callable<T> task) {
+        while (true) {
+            Pool current = pool();
+            try {
+                return current.executor.submit(task);
+            } catch (RejectedExecutionException e) {
+                if (current == pool) {
+                    throw e;
+                }
+            }
+        }
+    }
+
     /**
      * 执行post或者get方法
      *
@@ -97,10 +268,14 @@ public class HttpClientUtils {
      * @throws java.io.IOException
      */
     private static String executeMethod(HttpMethodBase method) throws IOException {
-        HttpClient httpClient = new HttpClient();
+        Pool current = acquire();
+        method.getParams().setSoTimeout(current.settings.getReadTimeout());
 
+        long start = System.currentTimeMillis();
+        boolean success = false;
+        ACTIVE.incrementAndGet();
         try {
-            int statusCode = httpClient.executeMethod(method);
+            int statusCode = current.httpClient.executeMethod(method);
 
             if (statusCode != HttpStatus.SC_OK) {
                 throw new IOException("Method failed: " + method.getStatusLine());
@@ -128,14 +303,311 @@ public class HttpClientUtils {
                     response = new String(responseBytes);
                 }
 
+                success = true;
                 return response;
             } finally {
                 // close stream.
                 IOUtils.closeQuietly(stream);
             }
         } finally {
-            // release connection.
+            // release connection back to the pool.
             method.releaseConnection();
+            current.active.decrementAndGet();
+            ACTIVE.decrementAndGet();
+            record(System.currentTimeMillis() - start, success);
+        }
+    }
+
+    private static void record(long latency, boolean success) {
+        REQUESTS.incrementAndGet();
+        if (!success) {
+            FAILURES.incrementAndGet();
+        }
+        TOTAL_LATENCY.addAndGet(latency);
+
+        long max;
+        while (latency > (max = MAX_LATENCY.get())) {
+            if (MAX_LATENCY.compareAndSet(max, latency)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 共享的HttpClient、连接池、空闲连接清理线程和异步请求的线程池
+     */
+    private static class Pool {
+        private final Settings settings;
+        private final MultiThreadedHttpConnectionManager connectionManager;
+        private final HttpClient httpClient;
+        private final IdleConnectionTimeoutThread idleConnectionThread;
+        private final ThreadPoolExecutor executor;
+        /**
+         * 正在使用这个连接池执行的请求数
+         */
+        private final AtomicInteger active = new AtomicInteger();
+
+        Pool(Settings settings) {
+            this.settings = settings;
+
+            connectionManager = new MultiThreadedHttpConnectionManager();
+            HttpConnectionManagerParams params = connectionManager.getParams();
+            params.setDefaultMaxConnectionsPerHost(settings.getMaxConnectionsPerHost());
+            params.setMaxTotalConnections(settings.getMaxTotalConnections());
+            params.setConnectionTimeout(settings.getConnectTimeout());
+            params.setSoTimeout(settings.getReadTimeout());
+            params.setStaleCheckingEnabled(true);
+
+            httpClient = new HttpClient(connectionManager);
+            // 从连接池获取连接的等待时间
+            httpClient.getParams().setConnectionManagerTimeout(settings.getConnectTimeout());
+
+            idleConnectionThread = new IdleConnectionTimeoutThread();
+            idleConnectionThread.setName("lodsve-http-idle-connection");
+            idleConnectionThread.setConnectionTimeout(settings.getIdleTimeout());
+            idleConnectionThread.setTimeoutInterval(Math.max(1000, settings.getIdleTimeout() / 2));
+            idleConnectionThread.addConnectionManager(connectionManager);
+            idleConnectionThread.start();
+
+            executor = new ThreadPoolExecutor(settings.getAsyncThreads(), settings.getAsyncThreads(), 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(settings.getAsyncQueueSize()), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "lodsve-http-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }, new RejectedExecutionHandler() {
+                @Override
+                public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                    // 已经关闭时抛出异常,不能像CallerRunsPolicy一样直接丢弃(调用方的Future永远不会完成)
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("http client pool is shut down!");
+                    }
+                    // 等待队列满了在调用线程中执行
+                    r.run();
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        /**
+         * 在后台线程中等待请求完成后关闭
+         */
+        void closeAsync() {
+            executor.shutdown();
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    close();
+                }
+            }, "lodsve-http-pool-close");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * 不再接受新的异步请求,等待已提交和正在执行的请求完成(最多连接超时加读取超时的时间)后关闭所有连接
+         */
+        void close() {
+            executor.shutdown();
+            long timeout = (long) settings.getConnectTimeout() + settings.getReadTimeout();
+            long deadline = System.currentTimeMillis() + timeout;
+            try {
+                if (!executor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+                    executor.shutdownNow();
+                }
+                while (active.get() > 0 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(50);
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            } finally {
+                idleConnectionThread.shutdown();
+                connectionManager.shutdown();
+            }
+        }
+    }
+
+    /**
+     * 连接池和超时设置
+     */
+    public static class Settings {
+        /**
+         * 每个host最多的连接数
+         */
+        private int maxConnectionsPerHost = 20;
+        /**
+         * 最多的连接数
+         */
+        private int maxTotalConnections = 200;
+        /**
+         * 建立连接(以及从连接池获取连接)的超时时间,毫秒
+         */
+        private int connectTimeout = DEFAULT_TIMEOUT;
+        /**
+         * 读取数据的超时时间,毫秒
+         */
+        private int readTimeout = DEFAULT_TIMEOUT;
+        /**
+         * 连接空闲多久后关闭,毫秒
+         */
+        private int idleTimeout = 60000;
+        /**
+         * 异步请求的最大并发数
+         */
+        private int asyncThreads = 20;
+        /**
+         * 异步请求等待队列的长度
+         */
+        private int asyncQueueSize = 1000;
+
+        public int getMaxConnectionsPerHost() {
+            return maxConnectionsPerHost;
+        }
+
+        public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+        }
+
+        public int getMaxTotalConnections() {
+            return maxTotalConnections;
+        }
+
+        public void setMaxTotalConnections(int maxTotalConnections) {
+            this.maxTotalConnections = maxTotalConnections;
+        }
+
+        public int getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(int connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public int getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(int readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public int getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(int idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public int getAsyncThreads() {
+            return asyncThreads;
+        }
+
+        public void setAsyncThreads(int asyncThreads) {
+            this.asyncThreads = asyncThreads;
+        }
+
+        public int getAsyncQueueSize() {
+            return asyncQueueSize;
+        }
+
+        public void setAsyncQueueSize(int asyncQueueSize) {
+            this.asyncQueueSize = asyncQueueSize;
+        }
+    }
+
+    /**
+     * 请求统计,自启动以来的累计值
+     */
+    public static class Metrics {
+        private final long requests;
+        private final long failures;
+        private final long totalLatency;
+        private final long maxLatency;
+        private final int activeRequests;
+        private final int pooledConnections;
+        private final int activeAsyncRequests;
+        private final int queuedAsyncRequests;
+
+        Metrics(long requests, long failures, long totalLatency, long maxLatency, int activeRequests,
+                int pooledConnections, int activeAsyncRequests, int queuedAsyncRequests) {
+            this.requests = requests;
+            this.failures = failures;
+            this.totalLatency = totalLatency;
+            this.maxLatency = maxLatency;
+            this.activeRequests = activeRequests;
+            this.pooledConnections = pooledConnections;
+            this.activeAsyncRequests = activeAsyncRequests;
+            this.queuedAsyncRequests = queuedAsyncRequests;
+        }
+
+        /**
+         * 请求总数
+         */
+        public long getRequests() {
+            return requests;
+        }
+
+        /**
+         * 失败(异常或者状态码不是200)的请求数
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * 平均耗时,毫秒
+         */
+        public long getAverageLatency() {
+            return requests == 0 ? 0 : totalLatency / requests;
+        }
+
+        /**
+         * 最大耗时,毫秒
+         */
+        public long getMaxLatency() {
+            return maxLatency;
+        }
+
+        /**
+         * 正在执行的请求数
+         */
+        public int getActiveRequests() {
+            return activeRequests;
+        }
+
+        /**
+         * 连接池中的连接数(包括正在使用的和空闲的)
+         */
+        public int getPooledConnections() {
+            return pooledConnections;
+        }
+
+        /**
+         * 正在执行的异步请求数
+         */
+        public int getActiveAsyncRequests() {
+            return activeAsyncRequests;
+        }
+
+        /**
+         * 等待执行的异步请求数
+         */
+        public int getQueuedAsyncRequests() {
+            return queuedAsyncRequests;
+        }
+
+        @Override
+        public String toString() {
+            return "requests=" + requests + ", failures=" + failures + ", averageLatency=" + getAverageLatency() +
+                    "ms, maxLatency=" + maxLatency + "ms, activeRequests=" + activeRequests + ", pooledConnections=" +
+                    pooledConnections + ", activeAsyncRequests=" + activeAsyncRequests + ", queuedAsyncRequests=" + queuedAsyncRequests;
         }
     }
 }
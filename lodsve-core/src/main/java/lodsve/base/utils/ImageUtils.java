@@ -5,12 +5,7 @@ import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
 import com.drew.metadata.exif.ExifDirectory;
 import com.drew.metadata.exif.ExifReader;
-import com.sun.image.codec.jpeg.JPEGCodec;
-import com.sun.image.codec.jpeg.JPEGEncodeParam;
-import com.sun.image.codec.jpeg.JPEGImageEncoder;
 import java.awt.*;
-import java.awt.geom.AffineTransform;
-import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
 import java.awt.image.ImageProducer;
 import java.awt.image.MemoryImageSource;
@@ -18,14 +13,35 @@ import java.awt.image.PixelGrabber;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
 import javax.swing.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
 
 /**
  * 图片处理工具类(需要整理)
@@ -35,6 +51,7 @@ import javax.swing.*;
  * @createTime 2012-3-17 上午03:06:14
  */
 public class ImageUtils {
+    private static final Logger logger = LoggerFactory.getLogger(ImageUtils.class);
     /**
      * EXIF版本
      */
@@ -96,6 +113,19 @@ public class ImageUtils {
      */
     public static final String EXPOSURE_BIAS = "exposure_bias";
 
+    /**
+     * 加水印后保存的jpeg质量
+     */
+    private static final float MARK_QUALITY = 0.9f;
+    /**
+     * 解码后的图片至少是最大缩略图的几倍,保证缩放质量
+     */
+    private static final int SUBSAMPLING_MARGIN = 2;
+    /**
+     * 批量生成缩略图的线程池,队列满了由提交的线程自己执行
+     */
+    private static final ExecutorService THUMBNAIL_EXECUTOR = newThumbnailExecutor();
+
     /**
      * 私有化构造器
      */
@@ -112,23 +142,7 @@ public class ImageUtils {
      * @throws Exception
      */
     public static File getRatioWidth(String filePath, int width, String destPath) throws Exception {
-        File f = new File(filePath);
-        BufferedImage bi = ImageIO.read(f);
-        double wRatio = (new Integer(width)).doubleValue() / bi.getWidth(); // 宽度的比例
-        int height = (int) (wRatio * bi.getHeight()); // 图片转换后的高度
-        Image image = bi.getScaledInstance(width, height, Image.SCALE_SMOOTH); // 设置图像的缩放大小
-        AffineTransformOp op = new AffineTransformOp(AffineTransform.getScaleInstance(wRatio, wRatio), null); // 设置图像的缩放比例
-        image = op.filter(bi, null);
-        File zoomFile = new File(destPath);
-        File file = null;
-        try {
-            ImageIO.write((BufferedImage) image, "jpg", zoomFile);
-            file = new File(zoomFile.getPath());
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return file;
+        return createThumbnails(filePath, null, Thumbnail.ratioWidth(width, destPath)).get(0);
     }
 
     /**
@@ -141,23 +155,7 @@ public class ImageUtils {
      * @throws Exception
      */
     public static File getRatioHeight(String filePath, int height, String destPath) throws Exception {
-        File f = new File(filePath);
-        BufferedImage bi = ImageIO.read(f);
-        double hRatio = (new Integer(height)).doubleValue() / bi.getHeight(); // 高度的比例
-        int width = (int) (hRatio * bi.getWidth()); // 图片转换后的高度
-        Image image = bi.getScaledInstance(width, height, Image.SCALE_SMOOTH); // 设置图像的缩放大小
-        AffineTransformOp op = new AffineTransformOp(AffineTransform.getScaleInstance(hRatio, hRatio), null); // 设置图像的缩放比例
-        image = op.filter(bi, null);
-        File zoomFile = new File(destPath);
-        File file = null;
-        try {
-            ImageIO.write((BufferedImage) image, "jpg", zoomFile);
-            file = new File(zoomFile.getPath());
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return file;
+        return createThumbnails(filePath, null, Thumbnail.ratioHeight(height, destPath)).get(0);
     }
 
     /**
@@ -171,23 +169,171 @@ public class ImageUtils {
      * @throws Exception
      */
     public static File getFixedIcon(String filePath, int width, int height, String destPath) throws Exception {
-        File f = new File(filePath);
-        BufferedImage bi = ImageIO.read(f);
-        double wRatio = (new Integer(width)).doubleValue() / bi.getWidth(); // 宽度的比例
-        double hRatio = (new Integer(height)).doubleValue() / bi.getHeight(); // 高度的比例
-        Image image = bi.getScaledInstance(width, height, Image.SCALE_SMOOTH); // 设置图像的缩放大小
-        AffineTransformOp op = new AffineTransformOp(AffineTransform.getScaleInstance(wRatio, hRatio), null); // 设置图像的缩放比例
-        image = op.filter(bi, null);
-        File zoomFile = new File(destPath);
-        File file = null;
+        return createThumbnails(filePath, null, Thumbnail.fixed(width, height, destPath)).get(0);
+    }
+
+    /**
+     * 一次生成多个尺寸的缩略图(jpg).
+     * 原图只解码一次,目标尺寸远小于原图时解码阶段就降采样;多个尺寸从大到小逐级缩放,水印在同一次处理中加上.
+     *
+     * @param filePath   图片路径
+     * @param mark       水印,为空则不加
+     * @param thumbnails 需要生成的缩略图
+     * @return 与thumbnails顺序一致的文件,写文件失败的为null
+     * @throws Exception
+     */
+    public static List<File> createThumbnails(String filePath, Mark mark, Thumbnail... thumbnails) throws Exception {
+        if (thumbnails == null || thumbnails.length == 0) {
+            return Collections.emptyList();
+        }
+
+        return doCreateThumbnails(new File(filePath), mark, thumbnails);
+    }
+
+    /**
+     * 在有界线程池中生成缩略图,用于批量处理上传的图片,线程池满了时在调用线程中执行
+     *
+     * @param filePath   图片路径
+     * @param mark       水印,为空则不加
+     * @param thumbnails 需要生成的缩略图
+     * @return 生成的文件
+     */
+    public static Future<List<File>> createThumbnailsAsync(final String filePath, final Mark mark, final Thumbnail... thumbnails) {
+        return THUMBNAIL_EXECUTOR.submit(new Callable<List<File>>() {
+            @Override
+            public List<File> call() throws Exception {
+                return createThumbnails(filePath, mark, thumbnails);
+            }
+        });
+    }
+
+    private static List<File> doCreateThumbnails(File source, Mark mark, Thumbnail[] thumbnails) throws Exception {
+        ImageInputStream iis = ImageIO.createImageInputStream(source);
+        if (iis == null) {
+            throw new IOException("can't read image '" + source + "'!");
+        }
+
+        BufferedImage decoded;
+        final int[][] sizes = new int[thumbnails.length][];
         try {
-            ImageIO.write((BufferedImage) image, "jpg", zoomFile);
-            file = new File(zoomFile.getPath());
-        } catch (Exception e) {
-            e.printStackTrace();
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                throw new IOException("unsupported image '" + source + "'!");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                int maxWidth = 1, maxHeight = 1;
+                for (int i = 0; i < thumbnails.length; i++) {
+                    sizes[i] = thumbnails[i].getSize(width, height);
+                    maxWidth = Math.max(maxWidth, sizes[i][0]);
+                    maxHeight = Math.max(maxHeight, sizes[i][1]);
+                }
+
+                // 目标远小于原图时,解码时就隔行隔列采样
+                int subsampling = Math.max(1, Math.min(width / (maxWidth * SUBSAMPLING_MARGIN), height / (maxHeight * SUBSAMPLING_MARGIN)));
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                decoded = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            iis.close();
         }
 
-        return file;
+        Image markImage = (mark != null && mark.markPath != null ? ImageIO.read(new File(mark.markPath)) : null);
+
+        // 从大到小生成,小图可以从上一张大图缩放
+        Integer[] order = new Integer[thumbnails.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return sizes[o2][0] * sizes[o2][1] - sizes[o1][0] * sizes[o1][1];
+            }
+        });
+
+        File[] files = new File[thumbnails.length];
+        BufferedImage previous = decoded;
+        for (int index : order) {
+            int width = sizes[index][0];
+            int height = sizes[index][1];
+
+            BufferedImage from = (previous.getWidth() >= width && previous.getHeight() >= height ? previous : decoded);
+            BufferedImage scaled = scale(from, width, height);
+            previous = scaled;
+
+            BufferedImage output = scaled;
+            if (mark != null) {
+                // 加水印的图不能再作为下一张的缩放源
+                output = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = output.createGraphics();
+                g.drawImage(scaled, 0, 0, null);
+                mark.draw(g, width, height, markImage);
+                g.dispose();
+            }
+
+            files[index] = write(output, thumbnails[index].destPath, -1);
+        }
+
+        return Arrays.asList(files);
+    }
+
+    /**
+     * 逐级(每次缩小一半)缩放到目标大小,比一次缩放清晰,也比SCALE_SMOOTH快很多
+     */
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage current = source;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(height, h / 2);
+
+            BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(current, 0, 0, w, h, Color.WHITE, null);
+            g.dispose();
+
+            current = next;
+        } while (w != width || h != height);
+
+        return current;
+    }
+
+    private static File write(BufferedImage image, String destPath, float quality) {
+        File file = new File(destPath);
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+            ImageOutputStream out = ImageIO.createImageOutputStream(file);
+            try {
+                writer.setOutput(out);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                if (quality > 0) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(quality);
+                }
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+                out.close();
+            }
+
+            return file;
+        } catch (Exception e) {
+            logger.error("write image '" + destPath + "' error!", e);
+            return null;
+        }
     }
 
     /**
@@ -245,6 +391,13 @@ public class ImageUtils {
         g.setColor(markContentColor);
         g.setBackground(Color.white);
         g.drawImage(theImg, 0, 0, null);
+        drawStringMark(g, width, height, markContent, fontSize, location);
+        g.dispose();
+
+        return addMark(filePath, bimage);
+    }
+
+    private static void drawStringMark(Graphics2D g, int width, int height, String markContent, int fontSize, int location) throws Exception {
         g.setFont(new Font("楷体", Font.PLAIN, fontSize)); // 字体、字型、字号
 
         int length = 0;
@@ -288,9 +441,6 @@ public class ImageUtils {
                 throw new Exception("没有位置！");
         }
         g.drawString(markContent, w, h); // 画文字
-        g.dispose();
-
-        return addMark(filePath, bimage);
     }
 
     /**
@@ -313,12 +463,21 @@ public class ImageUtils {
         // 要添加上来的水印
         ImageIcon icoADD = new ImageIcon(markPath);
         Image imgADD = icoADD.getImage();
-        int w = imgADD.getWidth(null);
-        int h = imgADD.getHeight(null);
         // 绘图
         Graphics2D g = buffInput.createGraphics();
         g.drawImage(imgInput, 0, 0, null);
 
+        drawImageMark(g, width, height, imgADD, location);
+
+        g.dispose();
+
+        return addMark(filePath, buffInput);
+    }
+
+    private static void drawImageMark(Graphics2D g, int width, int height, Image imgADD, int location) throws Exception {
+        int w = imgADD.getWidth(null);
+        int h = imgADD.getHeight(null);
+
         int x, y;
         switch (location) {
             case 1:
@@ -346,26 +505,10 @@ public class ImageUtils {
         }
         // 下面代码的前面五个参数：图片，x坐标，y坐标,图片宽度,图片高度
         g.drawImage(imgADD, x, y, w, h, null);
-
-        g.dispose();
-
-        return addMark(filePath, buffInput);
     }
 
     private static boolean addMark(String filePath, BufferedImage buffInput) {
-        try {
-            FileOutputStream out = new FileOutputStream(filePath);
-            JPEGImageEncoder encoder = JPEGCodec.createJPEGEncoder(out);
-            JPEGEncodeParam param = encoder
-                    .getDefaultJPEGEncodeParam(buffInput);
-            param.setQuality(7, true);
-            encoder.encode(buffInput, param);
-            out.close();
-
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return write(buffInput, filePath, MARK_QUALITY) != null;
     }
 
     /**
@@ -521,4 +664,133 @@ public class ImageUtils {
         return parmas;
     }
 
-}  
\ No newline at end of file
+    private static ExecutorService newThumbnailExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(threads * 4), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "lodsve-thumbnail-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    /**
+     * 缩略图的尺寸和保存路径
+     */
+    public static class Thumbnail {
+        private static final int RATIO_WIDTH = 1;
+        private static final int RATIO_HEIGHT = 2;
+        private static final int FIXED = 3;
+        private static final int PERCENT = 4;
+
+        private final int type;
+        private final int width;
+        private final int height;
+        private final String destPath;
+
+        private Thumbnail(int type, int width, int height, String destPath) {
+            Assert.hasText(destPath, "destPath is required!");
+            this.type = type;
+            this.width = width;
+            this.height = height;
+            this.destPath = destPath;
+        }
+
+        /**
+         * 按宽的比例缩放
+         */
+        public static Thumbnail ratioWidth(int width, String destPath) {
+            return new Thumbnail(RATIO_WIDTH, width, 0, destPath);
+        }
+
+        /**
+         * 按高的比例缩放
+         */
+        public static Thumbnail ratioHeight(int height, String destPath) {
+            return new Thumbnail(RATIO_HEIGHT, 0, height, destPath);
+        }
+
+        /**
+         * 缩放到固定宽高,不保持比例
+         */
+        public static Thumbnail fixed(int width, int height, String destPath) {
+            return new Thumbnail(FIXED, width, height, destPath);
+        }
+
+        /**
+         * 保持比例缩放到给定宽高以内,见{@link ImageUtils#getSizeByPercent(int, int, int, int)}
+         */
+        public static Thumbnail percent(int width, int height, String destPath) {
+            return new Thumbnail(PERCENT, width, height, destPath);
+        }
+
+        int[] getSize(int sourceWidth, int sourceHeight) {
+            int[] size;
+            switch (type) {
+                case RATIO_WIDTH:
+                    size = new int[]{width, (int) ((double) width / sourceWidth * sourceHeight)};
+                    break;
+                case RATIO_HEIGHT:
+                    size = new int[]{(int) ((double) height / sourceHeight * sourceWidth), height};
+                    break;
+                case PERCENT:
+                    size = getSizeByPercent(sourceWidth, sourceHeight, width, height);
+                    break;
+                default:
+                    size = new int[]{width, height};
+            }
+
+            return new int[]{Math.max(1, size[0]), Math.max(1, size[1])};
+        }
+    }
+
+    /**
+     * 在缩略图上加的水印,文字或者图片
+     */
+    public static class Mark {
+        private final String content;
+        private final Color color;
+        private final int fontSize;
+        private final String markPath;
+        private final int location;
+
+        private Mark(String content, Color color, int fontSize, String markPath, int location) {
+            this.content = content;
+            this.color = color;
+            this.fontSize = fontSize;
+            this.markPath = markPath;
+            this.location = location;
+        }
+
+        /**
+         * 文字水印,参数见{@link ImageUtils#addStringMark(String, String, Color, int, int)}
+         */
+        public static Mark text(String markContent, Color markContentColor, int fontSize, int location) {
+            return new Mark(markContent, markContentColor, fontSize, null, location);
+        }
+
+        /**
+         * 图片水印,参数见{@link ImageUtils#addImageMark(String, String, int)}
+         */
+        public static Mark image(String markPath, int location) {
+            return new Mark(null, null, 0, markPath, location);
+        }
+
+        void draw(Graphics2D g, int width, int height, Image markImage) throws Exception {
+            if (markImage != null) {
+                drawImageMark(g, width, height, markImage, location);
+            } else {
+                g.setColor(color);
+                drawStringMark(g, width, height, content, fontSize, location);
+            }
+        }
+    }
+}
@@ -1,12 +1,24 @@
 package lodsve.base.utils;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.type.TypeFactory;
 
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * json的工具类.
@@ -17,6 +29,13 @@ import java.util.Map;
  */
 public class JsonUtils {
     private final static ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * 按类型缓存的ObjectReader/ObjectWriter,避免每次都重新解析类型、查找序列化器
+     */
+    private final static ConcurrentMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final static ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private final static TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() {
+    };
 
     /**
      * 私有化构造器
@@ -28,7 +47,11 @@ public class JsonUtils {
      * javaBean,list,array convert to json string
      */
     public static String obj2json(Object obj) throws Exception {
-        return objectMapper.writeValueAsString(obj);
+        if (obj == null) {
+            return objectMapper.writeValueAsString(null);
+        }
+
+        return writer(obj.getClass()).writeValueAsString(obj);
     }
 
     /**
@@ -36,15 +59,22 @@ public class JsonUtils {
      */
     public static <T> T json2pojo(String jsonStr, Class<T> clazz)
             throws Exception {
-        return objectMapper.readValue(jsonStr, clazz);
+        return reader(clazz).readValue(jsonStr);
+    }
+
+    /**
+     * json string convert to generic type, e.g. {@code new TypeReference<List<User>>() {}}
+     */
+    public static <T> T json2pojo(String jsonStr, TypeReference<T> type)
+            throws Exception {
+        return reader(type).readValue(jsonStr);
     }
 
     /**
      * json string convert to map
      */
     public static Map<String, Object> json2map(String jsonStr) throws Exception {
-        return objectMapper.readValue(jsonStr, new TypeReference<Map<String, Object>>() {
-        });
+        return reader(MAP_TYPE).readValue(jsonStr);
     }
 
     /**
@@ -52,14 +82,7 @@ public class JsonUtils {
      */
     public static <T> Map<String, T> json2map(String jsonStr, Class<T> clazz)
             throws Exception {
-        Map<String, Map<String, Object>> map = objectMapper.readValue(jsonStr,
-                new TypeReference<Map<String, T>>() {
-                });
-        Map<String, T> result = new HashMap<>();
-        for (Map.Entry<String, Map<String, Object>> entry : map.entrySet()) {
-            result.put(entry.getKey(), map2pojo(entry.getValue(), clazz));
-        }
-        return result;
+        return reader(TypeFactory.defaultInstance().constructMapType(HashMap.class, String.class, clazz)).readValue(jsonStr);
     }
 
     /**
@@ -67,14 +90,61 @@ public class JsonUtils {
      */
     public static <T> List<T> json2list(String jsonArrayStr, Class<T> clazz)
             throws Exception {
-        List<Map<String, Object>> list = objectMapper.readValue(jsonArrayStr,
-                new TypeReference<List<T>>() {
-                });
-        List<T> result = new ArrayList<>();
-        for (Map<String, Object> map : list) {
-            result.add(map2pojo(map, clazz));
+        return reader(TypeFactory.defaultInstance().constructCollectionType(List.class, clazz)).readValue(jsonArrayStr);
+    }
+
+    /**
+     * 流式读取json数组,每次只解析一个元素,内存占用与数组长度无关.
+     * 用完后需要调用{@link MappingIterator#close()}关闭(会关闭输入流)
+     *
+     * @param in    json数组的输入流
+     * @param clazz 元素类型
+     * @return 元素的迭代器
+     */
+    public static <T> MappingIterator<T> json2iterator(InputStream in, Class<T> clazz) throws Exception {
+        return reader(clazz).readValues(in);
+    }
+
+    /**
+     * 流式读取json数组,元素为泛型类型
+     *
+     * @param in   json数组的输入流
+     * @param type 元素类型
+     * @return 元素的迭代器
+     */
+    public static <T> MappingIterator<T> json2iterator(InputStream in, TypeReference<T> type) throws Exception {
+        return reader(type).readValues(in);
+    }
+
+    /**
+     * 把迭代器中的对象逐个写成json数组,不会关闭输出流
+     *
+     * @param values 对象
+     * @param out    输出流
+     * @return 写出的元素个数
+     */
+    public static int writeAll(Iterator<?> values, OutputStream out) throws Exception {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        int count = 0;
+        try {
+            generator.writeStartArray();
+            while (values.hasNext()) {
+                Object value = values.next();
+                if (value == null) {
+                    generator.writeNull();
+                } else {
+                    writer(value.getClass()).writeValue(generator, value);
+                }
+                count++;
+            }
+            generator.writeEndArray();
+        } finally {
+            generator.close();
         }
-        return result;
+
+        return count;
     }
 
     /**
@@ -83,4 +153,49 @@ public class JsonUtils {
     public static <T> T map2pojo(Map map, Class<T> clazz) {
         return objectMapper.convertValue(map, clazz);
     }
+
+    private static ObjectReader reader(Class<?> clazz) {
+        ObjectReader reader = readers.get(clazz);
+        if (reader == null) {
+            reader = cacheReader(clazz, objectMapper.constructType(clazz));
+        }
+
+        return reader;
+    }
+
+    private static ObjectReader reader(TypeReference<?> type) {
+        ObjectReader reader = readers.get(type.getType());
+        if (reader == null) {
+            reader = cacheReader(type.getType(), objectMapper.getTypeFactory().constructType(type));
+        }
+
+        return reader;
+    }
+
+    private static ObjectReader reader(JavaType type) {
+        ObjectReader reader = readers.get(type);
+        if (reader == null) {
+            reader = cacheReader(type, type);
+        }
+
+        return reader;
+    }
+
+    private static ObjectReader cacheReader(Type key, JavaType type) {
+        ObjectReader reader = objectMapper.reader(type);
+        ObjectReader exist = readers.putIfAbsent(key, reader);
+
+        return exist != null ? exist : reader;
+    }
+
+    private static ObjectWriter writer(Class<?> clazz) {
+        ObjectWriter writer = writers.get(clazz);
+        if (writer == null) {
+            writer = objectMapper.writerFor(clazz);
+            ObjectWriter exist = writers.putIfAbsent(clazz, writer);
+            writer = exist != null ? exist : writer;
+        }
+
+        return writer;
+    }
 }
@@ -7,189 +7,614 @@ import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
 import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 /**
  * 获取汉字拼音的工具类
- * 
+ * <p/>
+ * 所有汉字(一-龥)的拼音在第一次使用时一次性查好,保存为紧凑的数组(字 -> 拼音编号),之后的转换不再调用pinyin4j.
+ * 多音字较多时建议使用{@link #pinyinIterator(String, String, boolean, int)}或{@link #getPinyins(Collection, String, boolean, int)},
+ * 按读音的常用程度依次生成组合,并限制组合的个数.
+ *
  * @author sunhao(sunhao.java@gmail.com)
  * @version V1.0
  * @createTime 2012-07-17 下午01:22
  */
 public class PinyinUtils {
+    /**
+     * 按需生成组合({@link #pinyinIterator}、{@link #getPinyins})时,一个字符串最多的组合个数
+     */
+    public static final int MAX_COMBINATIONS = 10000;
+    /**
+     * 展开所有组合时,结果的初始容量上限,超过时按需扩容
+     */
+    private static final int MAX_INITIAL_CAPACITY = 64 * 1024;
 
     /**
      * 私有化构造器
      */
     private PinyinUtils(){}
-	
+
+	/**
+	 * 获取汉字的全拼,多音字展开所有组合,用逗号分隔.
+	 * <p/>
+	 * 组合个数超过Integer.MAX_VALUE时抛出IllegalArgumentException;多音字很多时建议使用{@link #pinyinIterator}限制组合个数
+	 */
 	public static String getPinyin(String src) throws Exception {
-		return generate(getPinyinList(src, null, false,false));
+		return generate(src, null, false, false);
 	}
-	
+
+	/**
+	 * 获取汉字的全拼,多音字只取第一个读音.
+	 */
 	public static String getSinglePinyin(String src) throws Exception {
-		return generate(getPinyinList(src, null, false,true));
+		return generate(src, null, false, true);
 	}
 
+	/**
+	 * 获取汉字的全拼,每个字之间用separator分隔,多音字展开所有组合,用逗号分隔.
+	 * <p/>
+	 * 组合个数超过Integer.MAX_VALUE时抛出IllegalArgumentException;多音字很多时建议使用{@link #pinyinIterator}限制组合个数
+	 */
 	public static String getPinyin(String src, String separator) throws Exception {
-		return generate(getPinyinList(src, separator, false, false));
+		return generate(src, separator, false, false);
 	}
-	
+
+	/**
+	 * 获取汉字的全拼,每个字之间用separator分隔,多音字只取第一个读音.
+	 */
 	public static String getSinglePinyin(String src, String separator) throws Exception {
-		return generate(getPinyinList(src, separator, false, true));
+		return generate(src, separator, false, true);
 	}
 
+	/**
+	 * 获取汉字拼音的首字母,多音字展开所有组合,用逗号分隔.
+	 * <p/>
+	 * 组合个数超过Integer.MAX_VALUE时抛出IllegalArgumentException;多音字很多时建议使用{@link #pinyinIterator}限制组合个数
+	 */
 	public static String getShortPinyin(String src) throws Exception {
-		return generate(getPinyinList(src, null, true, false));
+		return generate(src, null, true, false);
 	}
-	
+
+	/**
+	 * 获取汉字拼音的首字母,多音字只取第一个读音.
+	 */
 	public static String getSingleShortPinyin(String src) throws Exception {
         if(StringUtils.isBlank(src)){
             return src;
         }
-		return generate(getPinyinList(src, null, true, true));
-	}
-	
-	/**
-	 * 字符串集合转换字符串(逗号分隔)
-	 * 
-	 * @param stringSet
-	 * @return
-	 */
-	private static String generate(List<StringBuffer> stringSet) {
-		if(stringSet==null||stringSet.isEmpty()){
-			return StringUtils.EMPTY;
-		}
-		
-		StringBuffer resultString=new StringBuffer();
-		
-		for(int i=0;i<stringSet.size();i++){
-			StringBuffer res=stringSet.get(i);
-			if(i!=0){
-				resultString.append(',');
-			}
-			resultString.append(res);
-		}
-		return resultString.toString();
+		return generate(src, null, true, true);
 	}
-	
+
+    /**
+     * 按读音的常用程度依次生成拼音组合,最常用的读音组合在最前面,最多生成limit个.
+     * 组合是按需生成的,不会一次性展开所有多音字组合.
+     *
+     * @param src         汉字
+     * @param separator   分隔符
+     * @param firstLetter 是否只取每个字拼音的首字母
+     * @param limit       最多生成的组合个数,不超过{@link #MAX_COMBINATIONS}
+     * @return 拼音组合
+     */
+    public static Iterator<String> pinyinIterator(String src, String separator, boolean firstLetter, int limit) {
+        return new CombinationIterator(StringUtils.isEmpty(src) ? "" : src, separator, firstLetter, limit, new StringBuilder());
+    }
+
+    /**
+     * 批量转换,每个字符串的拼音组合用逗号分隔,最多limit个组合(limit为1时只取最常用的读音).
+     * 转换过程中重复使用同一个缓冲区.
+     *
+     * @param sources     汉字
+     * @param separator   分隔符
+     * @param firstLetter 是否只取每个字拼音的首字母
+     * @param limit       每个字符串最多的组合个数,不超过{@link #MAX_COMBINATIONS}
+     * @return 与sources顺序一致的拼音
+     */
+    public static List<String> getPinyins(Collection<String> sources, String separator, boolean firstLetter, int limit) {
+        List<String> result = new ArrayList<>(sources.size());
+        StringBuilder combination = new StringBuilder(64);
+        StringBuilder joined = new StringBuilder(128);
+        for (String src : sources) {
+            if (StringUtils.isEmpty(src)) {
+                result.add(StringUtils.EMPTY);
+                continue;
+            }
+
+            joined.setLength(0);
+            CombinationIterator it = new CombinationIterator(src, separator, firstLetter, limit, combination);
+            while (it.hasNext()) {
+                if (joined.length() > 0) {
+                    joined.append(',');
+                }
+                it.appendNext(joined);
+            }
+            result.add(joined.toString());
+        }
+
+        return result;
+    }
+
 	/**
 	 * 获取汉字的拼音
-	 * 
+	 *
 	 * @param src				汉字
 	 * @param separator			分隔符
 	 * @param getFristLetter	是否获取单个字拼音的首字母
 	 * @param isSingle			是否获取多音字的所有拼音
 	 * @return
-	 * @throws Exception
+	 * @throws Exception 组合个数超过Integer.MAX_VALUE时抛出IllegalArgumentException
 	 */
 	public static List<StringBuffer> getPinyinList(String src, String separator, boolean getFristLetter, boolean isSingle) throws Exception{
 		if(StringUtils.isNotEmpty(src)){
-			char[] srcChar = src.toCharArray();
-			//汉语拼音格式输出类
-			HanyuPinyinOutputFormat hanyuPinyinOutputFormat = new HanyuPinyinOutputFormat();
-			
-			//输出设置，大小写，音标方式等
-			hanyuPinyinOutputFormat.setCaseType(HanyuPinyinCaseType.LOWERCASE);
-			hanyuPinyinOutputFormat.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
-			hanyuPinyinOutputFormat.setVCharType(HanyuPinyinVCharType.WITH_V);
-			
-			String[][] temp = new String[(src.length())][];
-			for(int i = 0; i < srcChar.length; i++){
-				char c = srcChar[i];
-				if(String.valueOf(c).matches("[\\u4E00-\\u9FA5]+")){
-					String[] parray = PinyinHelper.toHanyuPinyinStringArray(c, hanyuPinyinOutputFormat);
-					//如果不用多音字
-					if(isSingle && parray.length > 0){
-						parray = new String[]{parray[0]};
-					} else {
-						//去除重复的
-						parray = removeRepeat(parray);
-					}
-					if(getFristLetter){
-						temp[i] = getFristLetter(parray);
-					} else {
-						temp[i] = parray;
-					}
-				} else {
-					temp[i] = new String[]{String.valueOf(c)};
-				}
-			}
-			
-			int position = 0;
-			List<StringBuffer> resultList = new ArrayList<StringBuffer>();
-			while(position<temp.length){
-				position = remakeResultList(temp, position, resultList, separator);
-			}
-			
+            String[][] temp = legacyReadings(src, getFristLetter, isSingle);
+            int total = total(src, temp);
+
+            List<StringBuffer> resultList = new ArrayList<StringBuffer>(Math.min(total, MAX_INITIAL_CAPACITY));
+            int[] index = new int[temp.length];
+            for (int n = 0; n < total; n++) {
+                StringBuffer buffer = new StringBuffer(src.length() * 4);
+                appendCombination(buffer, temp, index, separator);
+                resultList.add(buffer);
+                next(index, temp);
+            }
+
 			return resultList;
 		}
-		
+
 		return null;
 	}
 
-	/**
-	 * 获取拼音的首字母
-	 * 
-	 * @param wholePinyin		拼音数组
-	 * @return
-	 */
-	private static String[] getFristLetter(String[] wholePinyin) {
-		for (int i = 0; i < wholePinyin.length; i++) {
-			wholePinyin[i] = ((String) wholePinyin[i]).substring(0, 1);
-		}
-		return removeRepeat(wholePinyin);
-	}
+    /**
+     * 直接生成逗号分隔的所有组合,结果与getPinyinList拼接后的一致
+     */
+    private static String generate(String src, String separator, boolean getFristLetter, boolean isSingle) {
+        if (StringUtils.isEmpty(src)) {
+            return StringUtils.EMPTY;
+        }
 
-	/**
-	 * 去除重复的项
-	 * 
-	 * @param parray	源数组
-	 * @return
-	 */
-	private static String[] removeRepeat(String[] parray) {
-		Set<String> set = new HashSet<String>();
-		for (String py : parray) {
-			if(!set.contains(py)){
-				set.add(py);
-			}
-		}
-		return set.toArray(new String[set.size()]);
-	}
+        String[][] temp = legacyReadings(src, getFristLetter, isSingle);
+        int total = total(src, temp);
 
-	/**
-	 * 对多音字的拼音数组进行处理
-	 * 
-	 * @param temp
-	 * @param position
-	 * @param resultList
-	 * @param separator
-	 * @return
-	 */
-	private static int remakeResultList(String[][] temp, int position, List<StringBuffer> resultList, String separator) {
-		if(position == 0){
-			for(String py : temp[0]){
-				resultList.add(new StringBuffer(py));
-			}
-		}else{
-			int oldSize = resultList.size();
-			for(int i = 0; i < oldSize; i++) {
-				StringBuffer oldPy = resultList.get(0);
-				String[] pyList2 = temp[position];
-				for(int j = 0, jsize = pyList2.length; j < jsize; j++){
-					StringBuffer coppiedBuffer = new StringBuffer(oldPy);
-					if(separator == null){
-						resultList.add(coppiedBuffer.append(pyList2[j]));
-					}else{
-						resultList.add(coppiedBuffer.append(separator).append(pyList2[j]));
-					}
-				}
-				resultList.remove(0);
-			}
-		}
-		return position + 1;
-	}
-	
+        StringBuilder result = new StringBuilder((int) Math.min((long) total * src.length() * 4, MAX_INITIAL_CAPACITY));
+        int[] index = new int[temp.length];
+        for (int n = 0; n < total; n++) {
+            if (n != 0) {
+                result.append(',');
+            }
+            appendCombination(result, temp, index, separator);
+            next(index, temp);
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * 所有多音字组合的个数,用long计算避免溢出;超过Integer.MAX_VALUE时结果无法放到一个List或者字符串中,抛出异常
+     */
+    private static int total(String src, String[][] temp) {
+        long total = 1;
+        for (String[] readings : temp) {
+            total *= readings.length;
+            if (total > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("'" + src + "' has more than " + Integer.MAX_VALUE +
+                        " pinyin combinations, use pinyinIterator or getPinyins with a limit instead!");
+            }
+        }
+
+        return (int) total;
+    }
+
+    /**
+     * 每个字的读音,顺序与原来用HashSet去重后的顺序一致
+     */
+    private static String[][] legacyReadings(String src, boolean getFristLetter, boolean isSingle) {
+        Table table = Table.INSTANCE;
+        String[][] temp = new String[src.length()][];
+        for (int i = 0; i < temp.length; i++) {
+            char c = src.charAt(i);
+            int id = Table.id(c);
+            if (id < 0 || table.count(id) == 0) {
+                temp[i] = new String[]{String.valueOf(c)};
+            } else if (isSingle) {
+                temp[i] = getFristLetter ? table.firstLetter(id) : table.first(id);
+            } else {
+                temp[i] = getFristLetter ? table.legacyLetters(id) : table.legacy(id);
+            }
+        }
+
+        return temp;
+    }
+
+    private static void appendCombination(Appendable buffer, String[][] temp, int[] index, String separator) {
+        try {
+            for (int i = 0; i < temp.length; i++) {
+                if (i != 0 && separator != null) {
+                    buffer.append(separator);
+                }
+                buffer.append(temp[i][index[i]]);
+            }
+        } catch (java.io.IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 最后一个字变化最快,与原来逐个字展开的顺序一致
+     */
+    private static void next(int[] index, String[][] temp) {
+        for (int i = index.length - 1; i >= 0; i--) {
+            if (++index[i] < temp[i].length) {
+                return;
+            }
+            index[i] = 0;
+        }
+    }
+
+    /**
+     * 按读音常用程度(pinyin4j返回的顺序)的排名之和从小到大生成组合.
+     * 每个组合只有一个父组合(去掉最后一个非零位置上的1),所以不需要去重,队列中最多limit * 多音字个数个组合.
+     */
+    private static class CombinationIterator implements Iterator<String> {
+        private final String src;
+        private final String separator;
+        private final boolean firstLetter;
+        private final int limit;
+        private final StringBuilder buffer;
+        private final Table table = Table.INSTANCE;
+        /**
+         * 多音字的位置和读音个数
+         */
+        private final int[] positions;
+        private final int[] counts;
+        private final PriorityQueue<Combination> queue;
+
+        private int returned;
+        private long sequence;
+
+        CombinationIterator(String src, String separator, boolean firstLetter, int limit, StringBuilder buffer) {
+            this.src = src;
+            this.separator = separator;
+            this.firstLetter = firstLetter;
+            this.limit = Math.min(limit, MAX_COMBINATIONS);
+            this.buffer = buffer;
+
+            int polyphones = 0;
+            int[] positions = new int[src.length()];
+            int[] counts = new int[src.length()];
+            for (int i = 0; i < src.length(); i++) {
+                int id = Table.id(src.charAt(i));
+                int count = id < 0 ? 0 : (firstLetter ? table.letterCount(id) : table.count(id));
+                if (count > 1) {
+                    positions[polyphones] = i;
+                    counts[polyphones++] = count;
+                }
+            }
+            this.positions = positions;
+            this.counts = counts;
+
+            this.queue = new PriorityQueue<>();
+            if (this.limit > 0) {
+                queue.add(new Combination(new int[polyphones], 0, 0, sequence++));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return returned < limit && !queue.isEmpty();
+        }
+
+        @Override
+        public String next() {
+            buffer.setLength(0);
+            appendNext(buffer);
+            return buffer.toString();
+        }
+
+        void appendNext(StringBuilder out) {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Combination combination = queue.poll();
+            returned++;
+
+            // 子组合:在最后一个非零位置及之后的位置上加1
+            if (returned + queue.size() < limit) {
+                for (int j = combination.last; j < combination.ranks.length; j++) {
+                    if (combination.ranks[j] + 1 < counts[j]) {
+                        int[] ranks = combination.ranks.clone();
+                        ranks[j]++;
+                        queue.add(new Combination(ranks, j, combination.sum + 1, sequence++));
+                    }
+                }
+            }
+
+            int polyphone = 0;
+            for (int i = 0; i < src.length(); i++) {
+                if (i != 0 && separator != null) {
+                    out.append(separator);
+                }
+
+                char c = src.charAt(i);
+                int id = Table.id(c);
+                if (id < 0 || table.count(id) == 0) {
+                    out.append(c);
+                    continue;
+                }
+
+                int rank = 0;
+                if (polyphone < positions.length && positions[polyphone] == i && polyphone < combination.ranks.length) {
+                    rank = combination.ranks[polyphone++];
+                }
+                if (firstLetter) {
+                    out.append(table.letter(id, rank));
+                } else {
+                    out.append(table.syllable(id, rank));
+                }
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class Combination implements Comparable<Combination> {
+        private final int[] ranks;
+        private final int last;
+        private final int sum;
+        private final long sequence;
+
+        Combination(int[] ranks, int last, int sum, long sequence) {
+            this.ranks = ranks;
+            this.last = last;
+            this.sum = sum;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Combination o) {
+            if (sum != o.sum) {
+                return sum < o.sum ? -1 : 1;
+            }
+            return sequence < o.sequence ? -1 : (sequence == o.sequence ? 0 : 1);
+        }
+    }
+
+    /**
+     * 汉字 -> 拼音编号的表,第一次使用时从pinyin4j加载
+     */
+    private static class Table {
+        private static final char FIRST = '一';
+        private static final char LAST = '龥';
+        private static final Table INSTANCE = new Table();
+
+        /**
+         * 所有不同的拼音(不带声调)
+         */
+        private final String[] syllables;
+        /**
+         * 第i个字的读音在readings中的范围是[offsets[i], offsets[i + 1])
+         */
+        private final int[] offsets;
+        /**
+         * 读音编号,按pinyin4j返回的顺序(常用的在前),已去重
+         */
+        private final short[] readings;
+        /**
+         * 读音编号,按原来用HashSet去重后的顺序
+         */
+        private final short[] legacyReadings;
+        /**
+         * 首字母,按常用程度排序、去重;范围是[letterOffsets[i], letterOffsets[i + 1])
+         */
+        private final int[] letterOffsets;
+        private final char[] letters;
+        /**
+         * 首字母,按原来用HashSet去重后的顺序
+         */
+        private final char[] legacyLetters;
+
+        /**
+         * 单个拼音、首字母的字符串,避免重复创建
+         */
+        private final String[][] syllableArrays;
+        private final String[] letterStrings = new String[128];
+
+        private Table() {
+            HanyuPinyinOutputFormat format = new HanyuPinyinOutputFormat();
+            format.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+            format.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+            format.setVCharType(HanyuPinyinVCharType.WITH_V);
+
+            int size = LAST - FIRST + 1;
+            Map<String, Short> ids = new HashMap<>();
+            List<String> names = new ArrayList<>();
+            offsets = new int[size + 1];
+            letterOffsets = new int[size + 1];
+            short[] readings = new short[size * 2];
+            short[] legacyReadings = new short[size * 2];
+            char[] letters = new char[size * 2];
+            char[] legacyLetters = new char[size * 2];
+            int r = 0, l = 0;
+
+            for (int i = 0; i < size; i++) {
+                offsets[i] = r;
+                letterOffsets[i] = l;
+
+                String[] parray;
+                try {
+                    parray = PinyinHelper.toHanyuPinyinStringArray((char) (FIRST + i), format);
+                } catch (Exception e) {
+                    parray = null;
+                }
+                if (parray == null || parray.length == 0) {
+                    continue;
+                }
+
+                Set<String> ordered = new LinkedHashSet<>();
+                for (String py : parray) {
+                    ordered.add(py);
+                }
+                String[] legacy = removeRepeat(parray);
+
+                if (r + ordered.size() > readings.length) {
+                    readings = grow(readings);
+                    legacyReadings = grow(legacyReadings);
+                }
+                for (String py : ordered) {
+                    readings[r++] = id(py, ids, names);
+                }
+                int k = offsets[i];
+                for (String py : legacy) {
+                    legacyReadings[k++] = id(py, ids, names);
+                }
+
+                Set<Character> orderedLetters = new LinkedHashSet<>();
+                for (String py : ordered) {
+                    orderedLetters.add(py.charAt(0));
+                }
+                String[] legacyLetterArray = new String[legacy.length];
+                for (int j = 0; j < legacy.length; j++) {
+                    legacyLetterArray[j] = legacy[j].substring(0, 1);
+                }
+                legacyLetterArray = removeRepeat(legacyLetterArray);
+
+                if (l + orderedLetters.size() > letters.length) {
+                    letters = grow(letters);
+                    legacyLetters = grow(legacyLetters);
+                }
+                for (Character letter : orderedLetters) {
+                    letters[l++] = letter;
+                }
+                k = letterOffsets[i];
+                for (String letter : legacyLetterArray) {
+                    legacyLetters[k++] = letter.charAt(0);
+                }
+            }
+            offsets[size] = r;
+            letterOffsets[size] = l;
+
+            this.syllables = names.toArray(new String[names.size()]);
+            this.readings = copy(readings, r);
+            this.legacyReadings = copy(legacyReadings, r);
+            this.letters = copy(letters, l);
+            this.legacyLetters = copy(legacyLetters, l);
+
+            this.syllableArrays = new String[syllables.length][];
+            for (int i = 0; i < syllables.length; i++) {
+                syllableArrays[i] = new String[]{syllables[i]};
+            }
+            for (char c = 0; c < letterStrings.length; c++) {
+                letterStrings[c] = String.valueOf(c);
+            }
+        }
+
+        /**
+         * 汉字在表中的位置,不是汉字返回-1
+         */
+        static int id(char c) {
+            return c >= FIRST && c <= LAST ? c - FIRST : -1;
+        }
+
+        int count(int id) {
+            return offsets[id + 1] - offsets[id];
+        }
+
+        int letterCount(int id) {
+            return letterOffsets[id + 1] - letterOffsets[id];
+        }
+
+        String syllable(int id, int rank) {
+            return syllables[readings[offsets[id] + rank]];
+        }
+
+        char letter(int id, int rank) {
+            return letters[letterOffsets[id] + rank];
+        }
+
+        String[] first(int id) {
+            return syllableArrays[readings[offsets[id]]];
+        }
+
+        String[] firstLetter(int id) {
+            return new String[]{letterString(syllable(id, 0).charAt(0))};
+        }
+
+        String[] legacy(int id) {
+            String[] result = new String[count(id)];
+            for (int i = 0, start = offsets[id]; i < result.length; i++) {
+                result[i] = syllables[legacyReadings[start + i]];
+            }
+
+            return result;
+        }
+
+        String[] legacyLetters(int id) {
+            String[] result = new String[letterCount(id)];
+            for (int i = 0, start = letterOffsets[id]; i < result.length; i++) {
+                result[i] = letterString(legacyLetters[start + i]);
+            }
+
+            return result;
+        }
+
+        private String letterString(char c) {
+            return c < letterStrings.length ? letterStrings[c] : String.valueOf(c);
+        }
+
+        private static short id(String syllable, Map<String, Short> ids, List<String> names) {
+            Short id = ids.get(syllable);
+            if (id == null) {
+                id = (short) names.size();
+                ids.put(syllable, id);
+                names.add(syllable);
+            }
+
+            return id;
+        }
+
+        /**
+         * 去除重复的项(与原来的实现一致,用于保持原有方法的输出顺序)
+         */
+        private static String[] removeRepeat(String[] parray) {
+            Set<String> set = new HashSet<String>();
+            for (String py : parray) {
+                if (!set.contains(py)) {
+                    set.add(py);
+                }
+            }
+            return set.toArray(new String[set.size()]);
+        }
+
+        private static short[] grow(short[] array) {
+            return copy(array, array.length * 2);
+        }
+
+        private static char[] grow(char[] array) {
+            return copy(array, array.length * 2);
+        }
+
+        private static short[] copy(short[] array, int length) {
+            short[] result = new short[length];
+            System.arraycopy(array, 0, result, 0, Math.min(length, array.length));
+            return result;
+        }
+
+        private static char[] copy(char[] array, int length) {
+            char[] result = new char[length];
+            System.arraycopy(array, 0, result, 0, Math.min(length, array.length));
+            return result;
+        }
+    }
 }
@@ -8,6 +8,8 @@ import org.springframework.util.Assert;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 处理字符串中的占位符.
@@ -34,6 +36,18 @@ public class PropertyPlaceholderHelper {
      * 右括号
      */
     private final static String RIGTH_BRACE = "}";
+    /**
+     * 最多缓存的模板个数
+     */
+    private static final int MAX_CACHED_TEMPLATES = 1024;
+    /**
+     * 解析好的${...}模板
+     */
+    private static final ConcurrentMap<String, NamedTemplate> NAMED_TEMPLATES = new ConcurrentHashMap<>();
+    /**
+     * 解析好的{0}{1}...模板
+     */
+    private static final ConcurrentMap<String, IndexedTemplate> INDEXED_TEMPLATES = new ConcurrentHashMap<>();
 
     /**
      * 私有化构造器，外部不可以实例化
@@ -64,59 +78,13 @@ public class PropertyPlaceholderHelper {
      */
     public static String replacePlaceholder(String text, boolean placeholderAsDefaultValue, Map<String, String> values) {
         Assert.hasText(text, "source text can't be null!");
-        if (!needReplace(text)) {
+        NamedTemplate template = getTemplate(NAMED_TEMPLATES, text, false);
+        if (template.isLiteral()) {
             return text;
         }
         Assert.notEmpty(values, "values can't be null!");
 
-        //1.根据前缀分组
-        String[] groups = StringUtils.split(text, PLACEHOLDER_PREFIX);
-
-        //2.遍历分组，如果有后缀，则取出
-        int length = groups.length;
-
-        //占位符在第一位
-        boolean placeholderInFirst = StringUtils.startsWith(text, PLACEHOLDER_PREFIX);
-        Assert.isTrue(placeholderInFirst || length > 1, "given text has no placeholder!");
-
-        List<String> placeholders = new ArrayList<>();
-        int start = placeholderInFirst ? 0 : 1;
-        for (int i = start; i < length; i++) {
-            if (i < length) {
-                String t = groups[i];
-                //3.将所有的占位符取出
-                if (StringUtils.contains(t, PLACEHOLDER_SUFFIX)) {
-                    placeholders.add(StringUtils.substring(t, 0, StringUtils.indexOf(t, PLACEHOLDER_SUFFIX)));
-                }
-            }
-        }
-
-        //4.进行替换
-        String result = text;
-        for (String ph : placeholders) {
-            String placeholder = PLACEHOLDER_PREFIX + ph + PLACEHOLDER_SUFFIX;
-            String value = values.get(ph);
-            if (StringUtils.isEmpty(value) && !placeholderAsDefaultValue) {
-                throw new NestableRuntimeException("process text '{" + text + "}' error! placeholder is '{" + placeholder + "}'!");
-            }
-
-            value = (StringUtils.isNotEmpty(value) ? value : ph);
-
-            //5.替换text
-            result = StringUtils.replace(result, placeholder, value);
-        }
-
-        return result;
-    }
-
-    /**
-     * 判断是否需要进行替换
-     *
-     * @param text 待检查文字
-     * @return
-     */
-    private static boolean needReplace(String text) {
-        return StringUtils.hasExcerpt(text, "\\$\\{.*?\\}") > 0;
+        return template.render(text, placeholderAsDefaultValue, values);
     }
 
     /**
@@ -146,59 +114,225 @@ public class PropertyPlaceholderHelper {
             return StringUtils.EMPTY;
         }
 
-        /**
-         * 第一个'{'的位置
-         */
-        int firstLeftBrace = formatString.indexOf(LEFT_BRACE);
-        /**
-         * 最后一个'}'的位置
-         */
-        int lastRightBrace = formatString.lastIndexOf(RIGTH_BRACE);
-
-        if (firstLeftBrace == -1 || lastRightBrace == -1) {
+        IndexedTemplate template = getTemplate(INDEXED_TEMPLATES, formatString, true);
+        if (template.isLiteral()) {
             return defaultValue == null ? formatString : defaultValue;
         }
 
-        /**
-         * 第一个'{'后面的那个数字
-         */
-        String first = formatString.substring(firstLeftBrace + 1, firstLeftBrace + 2);
-        /**
-         * 最后一个'}'后面的那个数字
-         */
-        String last = formatString.substring(lastRightBrace - 1, lastRightBrace);
-
-        /**
-         * 第一个序号和最后一个序号
-         */
-        int firstSequence = Integer.parseInt(first);
-        int lastSequence = Integer.parseInt(last);
-
         /**
          * {0}{1}...的个数与给定的值个数不一致，或者{0}{1}...不是按照这样递增的，那么返回错误,
          * 否则进行替换
          */
-        if (!((lastSequence - firstSequence + 1) < 0 || (lastSequence - firstSequence + 1) != args.length)) {
-            /**
-             * 替换规则：
-             * 给定值的第一个值替换{0}，以此类推
-             */
-            for (int j = 0; j < args.length; j++) {
-                formatString = formatString.replace("{" + j + "}", args[j] + "");
-            }
-        } else {
+        int argsLength = (args == null ? 0 : args.length);
+        int count = template.getLastIndex() - template.getFirstIndex() + 1;
+        if (count < 0 || count != argsLength) {
             if (logger.isWarnEnabled()) {
-                logger.warn("foramtString has '{}' barces, but you given '{}' paramters!",
-                        lastSequence - firstSequence + 1, args.length);
+                logger.warn("foramtString has '{}' barces, but you given '{}' paramters!", count, argsLength);
             }
 
             return defaultValue;
         }
 
+        /**
+         * 替换规则：
+         * 给定值的第一个值替换{0}，以此类推
+         */
+        String result = template.render(args);
         if (logger.isDebugEnabled()) {
-            logger.debug("format successed! the result is '{}'", formatString);
+            logger.debug("format successed! the result is '{}'", result);
+        }
+
+        return result;
+    }
+
+    /**
+     * 从缓存中获取解析好的模板，缓存已满时不再放入，避免动态拼接的字符串撑满内存
+     *
+     * @param cache   模板缓存
+     * @param text    模板字符串
+     * @param indexed 是否是{0}{1}...形式的模板
+     * @return 解析好的模板
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Template> T getTemplate(ConcurrentMap<String, T> cache, String text, boolean indexed) {
+        T template = cache.get(text);
+        if (template != null) {
+            return template;
         }
 
-        return formatString;
+        template = (T) (indexed ? IndexedTemplate.compile(text) : NamedTemplate.compile(text));
+        if (cache.size() < MAX_CACHED_TEMPLATES) {
+            T exist = cache.putIfAbsent(text, template);
+            if (exist != null) {
+                template = exist;
+            }
+        }
+
+        return template;
+    }
+
+    /**
+     * 解析好的模板，由文本片段和占位符交替组成，literals比placeholders多一个
+     */
+    private static abstract class Template {
+        final String[] literals;
+        final int literalLength;
+
+        Template(List<String> literals) {
+            this.literals = literals.toArray(new String[literals.size()]);
+            int length = 0;
+            for (String literal : literals) {
+                length += literal.length();
+            }
+            this.literalLength = length;
+        }
+
+        boolean isLiteral() {
+            return literals.length == 1;
+        }
+
+        StringBuilder newBuilder() {
+            return new StringBuilder(literalLength + (literals.length - 1) * 16);
+        }
+    }
+
+    /**
+     * ${...}形式的模板
+     */
+    private static class NamedTemplate extends Template {
+        private final String[] names;
+
+        private NamedTemplate(List<String> literals, List<String> names) {
+            super(literals);
+            this.names = names.toArray(new String[names.size()]);
+        }
+
+        static NamedTemplate compile(String text) {
+            List<String> literals = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+
+            StringBuilder literal = new StringBuilder();
+            int pos = 0;
+            int length = text.length();
+            while (pos < length) {
+                int prefix = text.indexOf(PLACEHOLDER_PREFIX, pos);
+                if (prefix == -1) {
+                    break;
+                }
+
+                int nameStart = prefix + PLACEHOLDER_PREFIX.length();
+                int suffix = text.indexOf(PLACEHOLDER_SUFFIX, nameStart);
+                int nextPrefix = text.indexOf(PLACEHOLDER_PREFIX, nameStart);
+                if (suffix == -1 || (nextPrefix != -1 && nextPrefix < suffix)) {
+                    // 没有闭合的前缀当作普通文本
+                    int literalEnd = (suffix == -1 ? length : nextPrefix);
+                    literal.append(text, pos, literalEnd);
+                    pos = literalEnd;
+                    continue;
+                }
+
+                literal.append(text, pos, prefix);
+                literals.add(literal.toString());
+                literal.setLength(0);
+                names.add(text.substring(nameStart, suffix));
+                pos = suffix + PLACEHOLDER_SUFFIX.length();
+            }
+            literal.append(text, pos, length);
+            literals.add(literal.toString());
+
+            return new NamedTemplate(literals, names);
+        }
+
+        String render(String text, boolean placeholderAsDefaultValue, Map<String, String> values) {
+            StringBuilder result = newBuilder();
+            for (int i = 0; i < names.length; i++) {
+                String name = names[i];
+                String value = values.get(name);
+                if (StringUtils.isEmpty(value)) {
+                    if (!placeholderAsDefaultValue) {
+                        String placeholder = PLACEHOLDER_PREFIX + name + PLACEHOLDER_SUFFIX;
+                        throw new NestableRuntimeException("process text '{" + text + "}' error! placeholder is '{" + placeholder + "}'!");
+                    }
+                    value = name;
+                }
+
+                result.append(literals[i]).append(value);
+            }
+            result.append(literals[names.length]);
+
+            return result.toString();
+        }
+    }
+
+    /**
+     * {0}{1}...形式的模板
+     */
+    private static class IndexedTemplate extends Template {
+        private final int[] indexes;
+
+        private IndexedTemplate(List<String> literals, List<Integer> indexes) {
+            super(literals);
+            this.indexes = new int[indexes.size()];
+            for (int i = 0; i < this.indexes.length; i++) {
+                this.indexes[i] = indexes.get(i);
+            }
+        }
+
+        static IndexedTemplate compile(String text) {
+            List<String> literals = new ArrayList<>();
+            List<Integer> indexes = new ArrayList<>();
+
+            int literalStart = 0;
+            int length = text.length();
+            int pos = text.indexOf(LEFT_BRACE);
+            while (pos != -1) {
+                int end = pos + 1;
+                while (end < length && Character.isDigit(text.charAt(end))) {
+                    end++;
+                }
+
+                if (end > pos + 1 && end < length && text.charAt(end) == RIGTH_BRACE.charAt(0) && end - pos - 1 < 10) {
+                    literals.add(text.substring(literalStart, pos));
+                    indexes.add(Integer.parseInt(text.substring(pos + 1, end)));
+                    literalStart = end + 1;
+                    pos = text.indexOf(LEFT_BRACE, literalStart);
+                } else {
+                    pos = text.indexOf(LEFT_BRACE, pos + 1);
+                }
+            }
+            literals.add(text.substring(literalStart));
+
+            return new IndexedTemplate(literals, indexes);
+        }
+
+        int getFirstIndex() {
+            return indexes[0];
+        }
+
+        int getLastIndex() {
+            return indexes[indexes.length - 1];
+        }
+
+        /**
+         * @param args 参数,可以为null(例如"{1}{0}"这样倒序的占位符不传参数时)
+         */
+        String render(Object... args) {
+            int argsLength = (args == null ? 0 : args.length);
+            StringBuilder result = newBuilder();
+            for (int i = 0; i < indexes.length; i++) {
+                result.append(literals[i]);
+
+                int index = indexes[i];
+                if (index < argsLength) {
+                    result.append(args[index]);
+                } else {
+                    // 没有对应参数的占位符保持原样
+                    result.append(LEFT_BRACE).append(index).append(RIGTH_BRACE);
+                }
+            }
+            result.append(literals[indexes.length]);
+
+            return result.toString();
+        }
     }
 }
@@ -1,27 +1,50 @@
 package lodsve.base.utils;
 
+import java.beans.Introspector;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlEnum;
+import javax.xml.bind.annotation.XmlEnumValue;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSchema;
+import javax.xml.bind.annotation.XmlTransient;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
 import org.dom4j.Element;
 import org.dom4j.io.OutputFormat;
 import org.dom4j.io.SAXReader;
 import org.dom4j.io.XMLWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 
 /**
  * xml工具类.
@@ -30,7 +53,21 @@ import org.xml.sax.InputSource;
  * @version V1.0, 2015-11-18 13:58
  */
 public final class XmlUtils {
+    private static final Logger logger = LoggerFactory.getLogger(XmlUtils.class);
     private static final SAXReader saxReader = new SAXReader();
+    /**
+     * 扁平xml的根节点,例如微信推送的消息
+     */
+    private static final String FLAT_ROOT = "xml";
+    /**
+     * 扁平xml预计的子节点个数,用于初始化map的容量
+     */
+    private static final int EXPECTED_FIELDS = 16;
+    /**
+     * 配置完成后线程安全,可以共享;禁止DTD和外部实体,防止XXE
+     */
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+    private static final ConcurrentMap<Class<?>, JAXBContext> JAXB_CONTEXTS = new ConcurrentHashMap<>();
 
     private XmlUtils() {
     }
@@ -225,36 +262,466 @@ public final class XmlUtils {
         return ele.attributeValue(attrName) != null;
     }
 
+    /**
+     * 解析扁平的xml(例如微信推送的消息),返回根节点"xml"下每个子节点的名称和文本.
+     * <p/>
+     * 使用StAX流式解析,不构建DOM;禁止DTD和外部实体(防止XXE),解析失败返回空map.
+     * 子节点下如果还有节点,值为所有文本拼接的结果
+     *
+     * @param body 输入流(UTF-8),不会关闭
+     * @return 子节点名称 -> 文本
+     */
     public static Map<String, String> parse(InputStream body) {
+        return parse(body, FLAT_ROOT);
+    }
+
+    /**
+     * 解析扁平的xml,返回第一个名称为root的节点下每个子节点的名称和文本.
+     *
+     * @param body 输入流(UTF-8),不会关闭
+     * @param root 根节点名称
+     * @return 子节点名称 -> 文本,解析失败或者没有root节点返回空map
+     */
+    public static Map<String, String> parse(InputStream body, String root) {
+        Assert.hasText(root);
+
+        XMLStreamReader reader = null;
         try {
-            InputSource source = new InputSource(new InputStreamReader(body, "UTF-8"));
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            org.w3c.dom.Document document = dbf.newDocumentBuilder().parse(source);
-            NodeList childNodes = document.getElementsByTagName("xml").item(0).getChildNodes();
-            Map<String, String> requestMap = new HashMap<>();
-            for (int i = 0; i < childNodes.getLength(); i++) {
-                Node item = childNodes.item(i);
-                requestMap.put(item.getNodeName(), item.getTextContent());
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(body, "UTF-8");
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && root.equals(reader.getLocalName())) {
+                    return readChildren(reader);
+                }
             }
-            return requestMap;
+            return Collections.emptyMap();
         } catch (Exception e) {
             return Collections.emptyMap();
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // ignore
+                }
+            }
         }
     }
 
+    /**
+     * 将对象转成xml(不包含xml声明,带缩进).
+     * <p/>
+     * 支持用{@link XmlRootElement}、{@link XmlElement}、{@link XmlTransient}描述、字段类型为字符串、整数、布尔、枚举、
+     * 集合以及同样规则的嵌套对象的类(例如微信的回复消息),每个类的字段只反射一次并缓存;其他情况交给JAXB处理
+     *
+     * @param obj 对象
+     * @return xml,转换失败返回空字符串
+     */
     public static String toXML(Object obj) {
+        StringWriter writer = new StringWriter(256);
+        try {
+            toXML(obj, writer);
+            return writer.toString();
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+            return "";
+        }
+    }
+
+    /**
+     * 将对象转成xml,直接写到writer,不会关闭writer
+     *
+     * @param obj    对象
+     * @param writer 输出
+     * @throws IOException 写入失败或者JAXB转换失败
+     */
+    public static void toXML(Object obj, Writer writer) throws IOException {
+        Class<?> clazz = obj.getClass();
+        XmlPlan plan = XmlPlan.of(clazz);
+        if (plan.isSupported() && plan.root != null) {
+            plan.write(obj, plan.root, writer, 0);
+            return;
+        }
+
         try {
-            JAXBContext context = JAXBContext.newInstance(obj.getClass());
-            Marshaller marshaller = context.createMarshaller();
+            Marshaller marshaller = jaxbContext(clazz).createMarshaller();
             marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
             marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
             marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
-            StringWriter writer = new StringWriter();
             marshaller.marshal(obj, writer);
-            return writer.toString();
         } catch (JAXBException e) {
-            e.printStackTrace();
-            return "";
+            throw new IOException(e);
+        }
+    }
+
+    private static Map<String, String> readChildren(XMLStreamReader reader) throws XMLStreamException {
+        Map<String, String> result = new HashMap<>(EXPECTED_FIELDS * 4 / 3 + 1);
+        StringBuilder text = new StringBuilder(64);
+        String name = null;
+        int depth = 0;
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (depth++ == 0) {
+                        name = reader.getLocalName();
+                        text.setLength(0);
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (depth > 0) {
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (depth == 0) {
+                        return result;
+                    }
+                    if (--depth == 0) {
+                        result.put(name, text.toString());
+                    }
+                    break;
+                case XMLStreamConstants.END_DOCUMENT:
+                    throw new XMLStreamException("unexpected end of document");
+                default:
+            }
+        }
+    }
+
+    private static JAXBContext jaxbContext(Class<?> clazz) throws JAXBException {
+        JAXBContext context = JAXB_CONTEXTS.get(clazz);
+        if (context == null) {
+            context = JAXBContext.newInstance(clazz);
+            JAXBContext exist = JAXB_CONTEXTS.putIfAbsent(clazz, context);
+            context = exist != null ? exist : context;
+        }
+
+        return context;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+
+    /**
+     * 一个类转成xml的方式:根节点名称以及按顺序(父类在前)需要输出的字段,properties为null时表示不支持,交给JAXB处理
+     */
+    private static final class XmlPlan {
+        private static final ConcurrentMap<Class<?>, XmlPlan> PLANS = new ConcurrentHashMap<>();
+        private static final XmlPlan UNSUPPORTED = new XmlPlan(null, null);
+        private static final String DEFAULT_NAME = "##default";
+        private static final String INDENT = "    ";
+        private static final int UNKNOWN = -1;
+        private static final int SIMPLE = 0;
+        private static final int BEAN = 1;
+        private static final int COLLECTION = 2;
+
+        private final String root;
+        private final Property[] properties;
+
+        private XmlPlan(String root, Property[] properties) {
+            this.root = root;
+            this.properties = properties;
+        }
+
+        static XmlPlan of(Class<?> clazz) {
+            XmlPlan plan = PLANS.get(clazz);
+            if (plan == null) {
+                plan = compile(clazz, new HashSet<Class<?>>());
+                XmlPlan exist = PLANS.putIfAbsent(clazz, plan);
+                plan = exist != null ? exist : plan;
+            }
+
+            return plan;
+        }
+
+        boolean isSupported() {
+            return properties != null;
+        }
+
+        private static XmlPlan compile(Class<?> clazz, Set<Class<?>> visiting) {
+            if (!visiting.add(clazz)) {
+                // 循环引用,是否支持由外层决定
+                return new XmlPlan(null, new Property[0]);
+            }
+
+            // 没有XmlRootElement的类只能作为嵌套对象
+            String root = null;
+            XmlRootElement rootElement = clazz.getAnnotation(XmlRootElement.class);
+            if (rootElement != null) {
+                if (!DEFAULT_NAME.equals(rootElement.namespace())) {
+                    return UNSUPPORTED;
+                }
+                root = DEFAULT_NAME.equals(rootElement.name()) ? Introspector.decapitalize(clazz.getSimpleName()) : rootElement.name();
+            }
+
+            List<Class<?>> hierarchy = new ArrayList<>();
+            for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+                hierarchy.add(0, c);
+            }
+
+            List<Property> properties = new ArrayList<>();
+            for (Class<?> c : hierarchy) {
+                if (!supportedClass(c)) {
+                    return UNSUPPORTED;
+                }
+
+                XmlAccessType accessType = accessType(c);
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || field.isSynthetic() || field.isAnnotationPresent(XmlTransient.class)) {
+                        continue;
+                    }
+
+                    XmlElement element = field.getAnnotation(XmlElement.class);
+                    boolean bound = element != null || (!Modifier.isTransient(modifiers) &&
+                            (accessType == XmlAccessType.FIELD || (accessType == XmlAccessType.PUBLIC_MEMBER && Modifier.isPublic(modifiers))));
+                    if (!bound) {
+                        continue;
+                    }
+
+                    Property property = Property.of(field, element);
+                    if (property == null || (property.kind == BEAN && !compile(property.type, visiting).isSupported())) {
+                        return UNSUPPORTED;
+                    }
+                    properties.add(property);
+                }
+            }
+
+            visiting.remove(clazz);
+            return new XmlPlan(root, properties.toArray(new Property[properties.size()]));
+        }
+
+        private static XmlAccessType accessType(Class<?> c) {
+            XmlAccessorType accessorType = c.getAnnotation(XmlAccessorType.class);
+            return accessorType == null ? XmlAccessType.PUBLIC_MEMBER : accessorType.value();
+        }
+
+        /**
+         * 类上不能有影响输出顺序、类型的注解,也不能有getter/setter属性(JAXB会把它们也输出);
+         * 包上有JAXB注解(如{@link XmlSchema}的命名空间、包级别的{@link XmlAccessorType})时也交给JAXB
+         */
+        private static boolean supportedClass(Class<?> c) {
+            for (Annotation annotation : c.getAnnotations()) {
+                Class<? extends Annotation> type = annotation.annotationType();
+                if (type != XmlRootElement.class && type != XmlAccessorType.class && isJaxbAnnotation(type)) {
+                    return false;
+                }
+            }
+
+            Package pkg = c.getPackage();
+            if (pkg != null) {
+                for (Annotation annotation : pkg.getAnnotations()) {
+                    if (isJaxbAnnotation(annotation.annotationType())) {
+                        return false;
+                    }
+                }
+            }
+
+            XmlAccessType accessType = accessType(c);
+            if (accessType == XmlAccessType.PROPERTY || accessType == XmlAccessType.PUBLIC_MEMBER) {
+                for (Method method : c.getDeclaredMethods()) {
+                    String name = method.getName();
+                    if (Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers()) &&
+                            (name.startsWith("get") || name.startsWith("is") || name.startsWith("set"))) {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        private static boolean isJaxbAnnotation(Class<? extends Annotation> type) {
+            return type.getName().startsWith("javax.xml.bind.annotation.");
+        }
+
+        /**
+         * 字段类型:字符串、整数、布尔、没有{@link XmlEnumValue}的枚举按文本输出;集合;其他非java.*的具体类按嵌套对象输出
+         */
+        private static int kind(Class<?> type) {
+            if (type == String.class || type == int.class || type == Integer.class || type == long.class ||
+                    type == Long.class || type == short.class || type == Short.class || type == byte.class ||
+                    type == Byte.class || type == boolean.class || type == Boolean.class) {
+                return SIMPLE;
+            }
+            if (type.isEnum()) {
+                for (Field constant : type.getFields()) {
+                    if (constant.isEnumConstant() && constant.isAnnotationPresent(XmlEnumValue.class)) {
+                        return UNKNOWN;
+                    }
+                }
+                return type.isAnnotationPresent(XmlEnum.class) ? UNKNOWN : SIMPLE;
+            }
+            if (Collection.class.isAssignableFrom(type)) {
+                return COLLECTION;
+            }
+            if (type.isPrimitive() || type.isArray() || type.isInterface() || Modifier.isAbstract(type.getModifiers()) ||
+                    type.getName().startsWith("java.") || type.getName().startsWith("javax.")) {
+                return UNKNOWN;
+            }
+
+            return BEAN;
+        }
+
+        void write(Object bean, String name, Writer writer, int depth) throws IOException {
+            if (depth > 0) {
+                indent(writer, depth);
+            }
+            writer.write('<');
+            writer.write(name);
+
+            boolean empty = true;
+            for (Property property : properties) {
+                Object value = property.get(bean);
+                if (value == null) {
+                    continue;
+                }
+
+                if (empty) {
+                    writer.write('>');
+                    empty = false;
+                }
+                if (property.collection) {
+                    for (Object item : (Collection<?>) value) {
+                        if (item != null) {
+                            property.write(item, writer, depth + 1);
+                        }
+                    }
+                } else {
+                    property.write(value, writer, depth + 1);
+                }
+            }
+
+            if (empty) {
+                writer.write("/>");
+            } else {
+                indent(writer, depth);
+                writer.write("</");
+                writer.write(name);
+                writer.write('>');
+            }
+        }
+
+        private static void indent(Writer writer, int depth) throws IOException {
+            writer.write('\n');
+            for (int i = 0; i < depth; i++) {
+                writer.write(INDENT);
+            }
+        }
+
+        private static void escape(String text, Writer writer) throws IOException {
+            int start = 0;
+            for (int i = 0; i < text.length(); i++) {
+                String replacement;
+                switch (text.charAt(i)) {
+                    case '&':
+                        replacement = "&amp;";
+                        break;
+                    case '<':
+                        replacement = "&lt;";
+                        break;
+                    case '>':
+                        replacement = "&gt;";
+                        break;
+                    case '\r':
+                        // 与JAXB一致,去掉回车
+                        replacement = "";
+                        break;
+                    default:
+                        continue;
+                }
+                writer.write(text, start, i - start);
+                writer.write(replacement);
+                start = i + 1;
+            }
+            writer.write(text, start, text.length() - start);
+        }
+    }
+
+    /**
+     * 需要输出的字段,集合时type为元素类型
+     */
+    private static final class Property {
+        private final Field field;
+        private final String name;
+        private final boolean collection;
+        private final Class<?> type;
+        private final int kind;
+
+        private Property(Field field, String name, boolean collection, Class<?> type, int kind) {
+            this.field = field;
+            this.name = name;
+            this.collection = collection;
+            this.type = type;
+            this.kind = kind;
+        }
+
+        /**
+         * @return 不支持时返回null
+         */
+        static Property of(Field field, XmlElement element) {
+            for (Annotation annotation : field.getAnnotations()) {
+                Class<? extends Annotation> type = annotation.annotationType();
+                if (type != XmlElement.class && XmlPlan.isJaxbAnnotation(type)) {
+                    return null;
+                }
+            }
+            if (element != null && !(XmlPlan.DEFAULT_NAME.equals(element.namespace()) && !element.nillable() &&
+                    element.type() == XmlElement.DEFAULT.class && "\u0000".equals(element.defaultValue()))) {
+                return null;
+            }
+
+            Class<?> type = field.getType();
+            int kind = XmlPlan.kind(type);
+            boolean collection = kind == XmlPlan.COLLECTION;
+            if (collection) {
+                Type generic = field.getGenericType();
+                Type[] arguments = generic instanceof ParameterizedType ? ((ParameterizedType) generic).getActualTypeArguments() : null;
+                if (arguments == null || arguments.length != 1 || !(arguments[0] instanceof Class)) {
+                    return null;
+                }
+                type = (Class<?>) arguments[0];
+                kind = XmlPlan.kind(type);
+            }
+            if (kind != XmlPlan.SIMPLE && kind != XmlPlan.BEAN) {
+                return null;
+            }
+
+            if (!Modifier.isPublic(field.getModifiers()) || !Modifier.isPublic(field.getDeclaringClass().getModifiers())) {
+                field.setAccessible(true);
+            }
+            String name = element == null || XmlPlan.DEFAULT_NAME.equals(element.name()) ? field.getName() : element.name();
+            return new Property(field, name, collection, type, kind);
+        }
+
+        Object get(Object bean) throws IOException {
+            try {
+                return field.get(bean);
+            } catch (IllegalAccessException e) {
+                throw new IOException(e);
+            }
+        }
+
+        void write(Object value, Writer writer, int depth) throws IOException {
+            if (kind == XmlPlan.BEAN) {
+                XmlPlan.of(type).write(value, name, writer, depth);
+                return;
+            }
+
+            XmlPlan.indent(writer, depth);
+            writer.write('<');
+            writer.write(name);
+            writer.write('>');
+            XmlPlan.escape(value instanceof Enum ? ((Enum<?>) value).name() : value.toString(), writer);
+            writer.write("</");
+            writer.write(name);
+            writer.write('>');
         }
     }
 }
@@ -1,143 +1,615 @@
 package lodsve.base.utils;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.tools.zip.ZipOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * 解压缩zip包.
- * 
+ * <p/>
+ * 压缩时每个文件在线程池中独立deflate,再按顺序拼装成一个zip,结果直接写到输出流,可以边压缩边发送给客户端.
+ * 解压时每个文件在线程池中并行写出,并校验解压路径不会跳出目标目录(zip slip).
+ *
  * @author sunhao(sunhao.java@gmail.com)
  * @version V1.0
  * @createTime 2012-5-3 上午11:51:41
  */
 public class ZipUtils {
-	private static final Logger logger = LoggerFactory.getLogger(ZipUtils.class);
+    private static final Logger logger = LoggerFactory.getLogger(ZipUtils.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * 压缩后超过这个大小的文件写到临时文件中,避免占用太多内存
+     */
+    private static final int MEMORY_THRESHOLD = 4 * 1024 * 1024;
+    /**
+     * 默认线程数
+     */
+    private static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
 
     /**
      * 私有化构造器
      */
     private ZipUtils(){}
 
-	/**
-	 * 解压zip文件
-	 * 
+    /**
+     * 解压zip文件
+     *
+     * @param zipFilePath 需要解压的文件,绝对路径
+     * @param zipPath     解压存储路径
+     * @return
+     * @throws Exception
+     */
+    public static boolean unZip(String zipFilePath, String zipPath) throws Exception {
+        return unZip(zipFilePath, zipPath, DEFAULT_THREADS);
+    }
+
+    /**
+     * 解压zip文件
+     *
      * @param zipFilePath 需要解压的文件,绝对路径
-     * @param zipPath     解压存储路径，相对路径
+     * @param zipPath     解压存储路径
+     * @param threads     并行解压的线程数,小于等于1时在当前线程解压
      * @return
      * @throws Exception
      */
-	public static boolean unZip(String zipFilePath, String zipPath) throws Exception {
-		if(StringUtils.isEmpty(zipFilePath) || StringUtils.isEmpty(zipPath)){
-			logger.error("this two params is requried!");
-			return false;
-		}
-		
-		//目标目录是否存在，存在不做任何动作，不存在则新建
-		File destFile = new File(zipPath);
-		if(!destFile.exists()) {
-			FileUtils.createFolder(destFile);
-		}
-		
-		File srcZipFile = new File(zipFilePath);			//源zip文件
-		if(!srcZipFile.getName().endsWith(".zip")){
-			logger.warn("this is not a zip file named '{}'", zipFilePath);
-			return false;
-		}
-		
-		//zip文件
-		java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(srcZipFile);
-		//zip文件包含的文件实体
-		java.util.zip.ZipEntry entry = null;
-		Enumeration<?> e = zipFile.entries();
-		//遍历每一个zip包含的文件
-		while(e.hasMoreElements()){
-			entry = (java.util.zip.ZipEntry) e.nextElement();
-			if(entry.isDirectory()){
-				//是文件夹
-				File file = new File(zipPath + entry.getName());
-				file.mkdir();
-			} else {
-				//是文件
-				InputStream is = zipFile.getInputStream(entry);		//得到当前文件的文件流
-				File eFile = new File(zipPath + entry.getName());
-				FileOutputStream fos = new FileOutputStream(eFile);		//输出流
-				int b;
-				while((b = is.read()) != -1){			//未读到最后
-					fos.write(b);						//将读取到的写入到文件中
-				}
-				is.close();
-				fos.close();
-			}
-		}
-		zipFile.close();
-
-		return true;
-	}
-	
-	/**
-	 * 压缩
-	 * 
+    public static boolean unZip(String zipFilePath, String zipPath, int threads) throws Exception {
+        if(StringUtils.isEmpty(zipFilePath) || StringUtils.isEmpty(zipPath)){
+            logger.error("this two params is requried!");
+            return false;
+        }
+
+        //目标目录是否存在，存在不做任何动作，不存在则新建
+        File destFile = new File(zipPath);
+        if(!destFile.exists()) {
+            FileUtils.createFolder(destFile);
+        }
+
+        File srcZipFile = new File(zipFilePath);			//源zip文件
+        if(!srcZipFile.getName().endsWith(".zip")){
+            logger.warn("this is not a zip file named '{}'", zipFilePath);
+            return false;
+        }
+
+        File destDir = destFile.getCanonicalFile();
+        final ZipFile zipFile = new ZipFile(srcZipFile);
+        ExecutorService executor = newExecutor(threads, "lodsve-unzip-");
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            Enumeration<? extends ZipEntry> e = zipFile.entries();
+            //遍历每一个zip包含的文件
+            while (e.hasMoreElements()) {
+                final ZipEntry entry = e.nextElement();
+                final File target = resolve(destDir, entry.getName());
+                if (entry.isDirectory()) {
+                    mkdirs(target);
+                    continue;
+                }
+
+                futures.add(submit(executor, new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        mkdirs(target.getParentFile());
+                        InputStream is = zipFile.getInputStream(entry);
+                        try {
+                            Files.copy(is, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                        } finally {
+                            is.close();
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> future : futures) {
+                get(future);
+            }
+        } finally {
+            shutdown(executor);
+            zipFile.close();
+        }
+
+        return true;
+    }
+
+    /**
+     * 压缩
+     *
      * @param zipFileName 打包后文件的名称,绝对路径
      * @param filePath    需要打包的文件夹或者文件的路径,绝对路径
-     * @param pathName    打包到pathName文件夹下,文件夹名称
+     * @param pathName    打包到pathName文件夹下,文件夹名称,为空则使用zip文件名(不含后缀)
      * @throws Exception
      */
     public static void zip(String zipFileName, String filePath, String pathName) throws Exception {
-    	if(StringUtils.isEmpty(zipFileName) || StringUtils.isEmpty(filePath)){
-			logger.error("this two params is requried!");
-			return;
-		}
-    	
-    	OutputStream out = null;
-        BufferedOutputStream bos = null;
-        ZipOutputStream zos = null;
+        if(StringUtils.isEmpty(zipFileName) || StringUtils.isEmpty(filePath)){
+            logger.error("this two params is requried!");
+            return;
+        }
 
         File f = new File(zipFileName);
-        out = new FileOutputStream(f);
-        bos = new BufferedOutputStream(out);
-        zos = new ZipOutputStream(bos);
-        zos.setEncoding("UTF-8");
-
         if (StringUtils.isNotBlank(pathName)) {
-            pathName = pathName + File.separator;
+            pathName = StringUtils.removeEnd(StringUtils.replace(pathName, File.separator, "/"), "/");
         } else {
             pathName = f.getName().substring(0, f.getName().length() - 4);
         }
 
-        doZip(zos, filePath, pathName);
+        List<Source> sources = new ArrayList<>();
+        collectSources(new File(filePath), pathName + "/", sources);
+
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(f), BUFFER_SIZE);
+        try {
+            zip(sources.iterator(), out);
+        } finally {
+            out.close();
+        }
+    }
 
-        zos.flush();
-        zos.close();
-        bos.flush();
-        bos.close();
-        out.flush();
-        out.close();
+    /**
+     * 流式压缩,结果直接写到输出流(不会关闭输出流),例如HttpServletResponse的输出流
+     *
+     * @param sources 需要压缩的内容
+     * @param out     输出流
+     * @throws Exception
+     */
+    public static void zip(Iterator<Source> sources, OutputStream out) throws Exception {
+        zip(sources, out, DEFAULT_THREADS);
     }
-    
-    private static void doZip(ZipOutputStream zos, String filePath, String pathName) throws IOException {
-    	File file2zip = new File(filePath);
-        if (file2zip.isFile()) {
-            zos.putNextEntry(new org.apache.tools.zip.ZipEntry(pathName + file2zip.getName()));
-            IOUtils.copy(new FileInputStream(file2zip.getAbsolutePath()), zos);
-            zos.closeEntry();
-        } else {
-            File[] files = file2zip.listFiles();
-            if (files != null) {
-                for (File f : files) {
-                    if (f.isDirectory()) {
-                        doZip(zos, f.getAbsolutePath(), pathName + f.getName() + File.separator);
-                    } else {
-                        zos.putNextEntry(new org.apache.tools.zip.ZipEntry(pathName + File.separator + f.getName()));
-                        IOUtils.copy(new FileInputStream(f.getAbsolutePath()), zos);
-                        zos.closeEntry();
+
+    /**
+     * 流式压缩,结果直接写到输出流(不会关闭输出流).
+     * 多个文件并行压缩,按照sources的顺序写入,同时最多有threads * 2个文件在压缩或等待写出.
+     *
+     * @param sources 需要压缩的内容
+     * @param out     输出流
+     * @param threads 并行压缩的线程数,小于等于1时在当前线程压缩
+     * @throws Exception
+     */
+    public static void zip(Iterator<Source> sources, OutputStream out, int threads) throws Exception {
+        ExecutorService executor = newExecutor(threads, "lodsve-zip-");
+        ZipArchiveWriter writer = new ZipArchiveWriter(out);
+        LinkedList<Future<DeflatedEntry>> pending = new LinkedList<>();
+        int window = Math.max(1, threads) * 2;
+
+        try {
+            while (sources.hasNext()) {
+                final Source source = sources.next();
+                pending.add(submit(executor, new Callable<DeflatedEntry>() {
+                    @Override
+                    public DeflatedEntry call() throws Exception {
+                        return DeflatedEntry.deflate(source);
+                    }
+                }));
+
+                if (pending.size() >= window) {
+                    writer.write(get(pending.removeFirst()));
+                }
+            }
+            while (!pending.isEmpty()) {
+                writer.write(get(pending.removeFirst()));
+            }
+
+            writer.finish();
+        } finally {
+            shutdown(executor);
+            for (Future<DeflatedEntry> future : pending) {
+                if (future.isDone() && !future.isCancelled()) {
+                    try {
+                        future.get().dispose();
+                    } catch (ExecutionException e) {
+                        // 已经抛出了第一个异常
                     }
                 }
             }
         }
     }
+
+    private static void collectSources(File file, String pathName, List<Source> sources) {
+        if (file.isFile()) {
+            sources.add(new Source(pathName + file.getName(), file));
+            return;
+        }
+
+        File[] files = file.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File f : files) {
+            if (f.isDirectory()) {
+                collectSources(f, pathName + f.getName() + "/", sources);
+            } else {
+                sources.add(new Source(pathName + f.getName(), f));
+            }
+        }
+    }
+
+    /**
+     * 计算entry解压后的路径,不能跳出目标目录
+     */
+    private static File resolve(File destDir, String entryName) throws IOException {
+        File target = new File(destDir, entryName).getCanonicalFile();
+        if (!target.equals(destDir) && !target.getPath().startsWith(destDir.getPath() + File.separator)) {
+            throw new IOException("zip entry '" + entryName + "' is outside of the target dir '" + destDir + "'!");
+        }
+
+        return target;
+    }
+
+    private static void mkdirs(File dir) throws IOException {
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("can't create dir '" + dir + "'!");
+        }
+    }
+
+    private static ExecutorService newExecutor(int threads, final String prefix) {
+        if (threads <= 1) {
+            return null;
+        }
+
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, prefix + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * 没有线程池时直接在当前线程执行
+     */
+    private static <T> Future<T> submit(ExecutorService executor, Callable<T> callable) {
+        FutureTask<T> task = new FutureTask<>(callable);
+        if (executor == null) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+
+        return task;
+    }
+
+    private static <T> T get(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void shutdown(ExecutorService executor) throws InterruptedException {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * 需要压缩的内容,名称以"/"结尾表示文件夹
+     */
+    public static class Source {
+        private final String name;
+        private final File file;
+        private final InputStream stream;
+
+        /**
+         * @param name zip中的路径,以"/"分隔
+         * @param file 文件
+         */
+        public Source(String name, File file) {
+            this.name = name;
+            this.file = file;
+            this.stream = null;
+        }
+
+        /**
+         * @param name   zip中的路径,以"/"分隔
+         * @param stream 内容,压缩完成后关闭
+         */
+        public Source(String name, InputStream stream) {
+            this.name = name;
+            this.file = null;
+            this.stream = stream;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        InputStream open() throws IOException {
+            return file != null ? new FileInputStream(file) : stream;
+        }
+
+        long lastModified() {
+            return file != null ? file.lastModified() : System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 已经压缩好的entry,压缩后的数据在内存或者临时文件中
+     */
+    private static class DeflatedEntry {
+        private String name;
+        private long time;
+        private int method;
+        private long crc;
+        private long size;
+        private long compressedSize;
+        private byte[] data;
+        private File temp;
+
+        static DeflatedEntry deflate(Source source) throws IOException {
+            DeflatedEntry entry = new DeflatedEntry();
+            entry.name = source.getName();
+            entry.time = source.lastModified();
+
+            if (source.isDirectory()) {
+                entry.method = ZipEntry.STORED;
+                entry.data = new byte[0];
+                return entry;
+            }
+
+            entry.method = ZipEntry.DEFLATED;
+            SpillOutputStream spill = new SpillOutputStream();
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            CRC32 crc = new CRC32();
+            InputStream in = source.open();
+            try {
+                DeflaterOutputStream out = new DeflaterOutputStream(spill, deflater, BUFFER_SIZE);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, n);
+                    out.write(buffer, 0, n);
+                    entry.size += n;
+                }
+                out.finish();
+                spill.close();
+            } catch (IOException e) {
+                spill.dispose();
+                throw e;
+            } finally {
+                in.close();
+                deflater.end();
+            }
+
+            entry.crc = crc.getValue();
+            entry.compressedSize = spill.count;
+            entry.data = spill.getData();
+            entry.temp = spill.temp;
+
+            return entry;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            if (temp == null) {
+                out.write(data, 0, (int) compressedSize);
+                return;
+            }
+
+            InputStream in = new FileInputStream(temp);
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+            } finally {
+                in.close();
+            }
+        }
+
+        void dispose() {
+            data = null;
+            if (temp != null && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+            temp = null;
+        }
+    }
+
+    /**
+     * 先写到内存,超过{@link #MEMORY_THRESHOLD}后转到临时文件
+     */
+    private static class SpillOutputStream extends OutputStream {
+        private ByteArrayOutputStream memory = new ByteArrayOutputStream(8192);
+        private OutputStream file;
+        private File temp;
+        private long count;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (file == null && count + len > MEMORY_THRESHOLD) {
+                temp = File.createTempFile("lodsve-zip-", ".tmp");
+                file = new BufferedOutputStream(new FileOutputStream(temp), BUFFER_SIZE);
+                memory.writeTo(file);
+                memory = null;
+            }
+
+            if (file != null) {
+                file.write(b, off, len);
+            } else {
+                memory.write(b, off, len);
+            }
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (file != null) {
+                file.close();
+            }
+        }
+
+        byte[] getData() {
+            return memory != null ? memory.toByteArray() : null;
+        }
+
+        void dispose() {
+            try {
+                close();
+            } catch (IOException e) {
+                logger.warn(e.getMessage(), e);
+            }
+            if (temp != null && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * 按zip格式把已经压缩好的entry顺序写出,每个entry的crc和大小已知,不需要回写,所以可以直接写到不能随机访问的输出流.
+     * 不支持zip64(单个文件或者整个zip超过4G,或者超过65535个entry)
+     */
+    private static class ZipArchiveWriter {
+        private static final long LIMIT = 0xFFFFFFFFL;
+        /**
+         * 文件名使用UTF-8编码
+         */
+        private static final int FLAG_UTF8 = 0x0800;
+
+        private final OutputStream out;
+        private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+        private long offset;
+        private int count;
+
+        ZipArchiveWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        void write(DeflatedEntry entry) throws IOException {
+            try {
+                if (entry.size > LIMIT || entry.compressedSize > LIMIT || offset > LIMIT || count >= 0xFFFF) {
+                    throw new IOException("zip64 is not supported, entry '" + entry.name + "' is too large!");
+                }
+
+                byte[] name = entry.name.getBytes("UTF-8");
+                int dosTime = toDosTime(entry.time);
+
+                //local file header
+                ByteArrayOutputStream header = new ByteArrayOutputStream(30 + name.length);
+                writeInt(header, 0x04034b50);
+                writeShort(header, 20);
+                writeShort(header, FLAG_UTF8);
+                writeShort(header, entry.method);
+                writeInt(header, dosTime);
+                writeInt(header, entry.crc);
+                writeInt(header, entry.compressedSize);
+                writeInt(header, entry.size);
+                writeShort(header, name.length);
+                writeShort(header, 0);
+                header.write(name);
+                header.writeTo(out);
+                entry.writeTo(out);
+
+                //central directory
+                writeInt(centralDirectory, 0x02014b50);
+                writeShort(centralDirectory, 20);
+                writeShort(centralDirectory, 20);
+                writeShort(centralDirectory, FLAG_UTF8);
+                writeShort(centralDirectory, entry.method);
+                writeInt(centralDirectory, dosTime);
+                writeInt(centralDirectory, entry.crc);
+                writeInt(centralDirectory, entry.compressedSize);
+                writeInt(centralDirectory, entry.size);
+                writeShort(centralDirectory, name.length);
+                writeShort(centralDirectory, 0);
+                writeShort(centralDirectory, 0);
+                writeShort(centralDirectory, 0);
+                writeShort(centralDirectory, 0);
+                writeInt(centralDirectory, entry.name.endsWith("/") ? 0x10 : 0);
+                writeInt(centralDirectory, offset);
+                centralDirectory.write(name);
+
+                offset += header.size() + entry.compressedSize;
+                count++;
+            } finally {
+                entry.dispose();
+            }
+        }
+
+        void finish() throws IOException {
+            if (offset > LIMIT) {
+                throw new IOException("zip64 is not supported, zip file is too large!");
+            }
+
+            centralDirectory.writeTo(out);
+
+            //end of central directory
+            ByteArrayOutputStream end = new ByteArrayOutputStream(22);
+            writeInt(end, 0x06054b50);
+            writeShort(end, 0);
+            writeShort(end, 0);
+            writeShort(end, count);
+            writeShort(end, count);
+            writeInt(end, centralDirectory.size());
+            writeInt(end, offset);
+            writeShort(end, 0);
+            end.writeTo(out);
+
+            out.flush();
+        }
+
+        private static int toDosTime(long time) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(time);
+            int year = calendar.get(Calendar.YEAR);
+            if (year < 1980) {
+                return (1 << 21) | (1 << 16);
+            }
+
+            return (year - 1980) << 25 | (calendar.get(Calendar.MONTH) + 1) << 21 | calendar.get(Calendar.DAY_OF_MONTH) << 16 |
+                    calendar.get(Calendar.HOUR_OF_DAY) << 11 | calendar.get(Calendar.MINUTE) << 5 | calendar.get(Calendar.SECOND) >> 1;
+        }
+
+        private static void writeShort(ByteArrayOutputStream out, int value) {
+            out.write(value & 0xFF);
+            out.write((value >>> 8) & 0xFF);
+        }
+
+        private static void writeInt(ByteArrayOutputStream out, long value) {
+            out.write((int) (value & 0xFF));
+            out.write((int) ((value >>> 8) & 0xFF));
+            out.write((int) ((value >>> 16) & 0xFF));
+            out.write((int) ((value >>> 24) & 0xFF));
+        }
+    }
 }
@@ -1,20 +1,19 @@
 package lodsve.mvc.commons;
 
 import lodsve.base.bean.Constants;
+import lodsve.base.utils.DateFormatter;
 import lodsve.base.utils.RequestUtils;
 import lodsve.base.utils.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanUtils;
-import org.springframework.beans.propertyeditors.CustomDateEditor;
 import org.springframework.web.bind.ServletRequestDataBinder;
 
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
-import java.text.DateFormat;
+import java.beans.PropertyEditorSupport;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -35,6 +34,12 @@ public class WebInput {
 
     private static final Integer DEFAULT_INTEGER = Integer.valueOf(-1);
     private static final Long DEFAULT_LONG = Long.valueOf(-1);
+    //yyyy-MM-dd hh:mm
+    private static final Pattern DATE_TIME_PATTERN = Pattern.compile("(\\d){2,4}[-](\\d){1,2}[-](\\d){1,2} (\\d){1,2}[:](\\d){1,2}");
+    //yyyy-MM-dd
+    private static final Pattern DATE_PATTERN = Pattern.compile("(\\d){2,4}[-](\\d){1,2}[-](\\d){1,2}");
+    //hh:mm yyyy-MM-dd
+    private static final Pattern TIME_DATE_PATTERN = Pattern.compile("(\\d){1,2}[:](\\d){1,2} (\\d){2,4}[-](\\d){1,2}[-](\\d){1,2}");
     /**
      * session的默认生命周期，是20分钟
      */
@@ -149,7 +154,7 @@ public class WebInput {
     }
 
     public Date getDate(String name, String pattern, Date defaultValue) {
-        DateFormat format = new SimpleDateFormat(pattern);
+        DateFormatter format = DateFormatter.getInstance(pattern);
         Date result = defaultValue;
         try {
             String value = this.request.getParameter(name);
@@ -165,7 +170,7 @@ public class WebInput {
     }
 
     public Date getDate(String name) {
-        DateFormat format = new SimpleDateFormat(TIME_PATTERN);
+        DateFormatter format = DateFormatter.getInstance(TIME_PATTERN);
         String value = this.request.getParameter(name);
         try {
             return StringUtils.isEmpty(value) ? null : format.parse(value);
@@ -329,8 +334,29 @@ public class WebInput {
         List<String> params = RequestUtils.getRequestParam(request);
         ServletRequestDataBinder binder = new ServletRequestDataBinder(command, DEFAULT_COMMAND_NAME);
 
-        DateFormat dateFormat1 = new SimpleDateFormat(getDateFormatPattern(params));
-        binder.registerCustomEditor(Date.class, new CustomDateEditor(dateFormat1, true));
+        final DateFormatter dateFormat = DateFormatter.getInstance(getDateFormatPattern(params));
+        // 与CustomDateEditor(dateFormat, true)一致,但使用共享的DateFormatter
+        binder.registerCustomEditor(Date.class, new PropertyEditorSupport() {
+            @Override
+            public void setAsText(String text) throws IllegalArgumentException {
+                if (StringUtils.isBlank(text)) {
+                    setValue(null);
+                    return;
+                }
+
+                try {
+                    setValue(dateFormat.parse(text));
+                } catch (ParseException e) {
+                    throw new IllegalArgumentException("Could not parse date: " + e.getMessage(), e);
+                }
+            }
+
+            @Override
+            public String getAsText() {
+                Date value = (Date) getValue();
+                return value != null ? dateFormat.format(value) : "";
+            }
+        });
 
         return binder;
     }
@@ -346,20 +372,14 @@ public class WebInput {
             log.debug("this url paramter is null!");
             return Constants.SIMPLE_DATE_FORMAT;
         }
-        //yyyy-MM-dd hh:mm
-        Pattern p1 = Pattern.compile("(\\d){2,4}[-](\\d){1,2}[-](\\d){1,2} (\\d){1,2}[:](\\d){1,2}");
-        //yyyy-MM-dd
-        Pattern p2 = Pattern.compile("(\\d){2,4}[-](\\d){1,2}[-](\\d){1,2}");
-        //hh:mm yyyy-MM-dd
-        Pattern p3 = Pattern.compile("(\\d){1,2}[:](\\d){1,2} (\\d){2,4}[-](\\d){1,2}[-](\\d){1,2}");
         for (String up : urlParams) {
-            if (p1.matcher(up).matches()) {
+            if (DATE_TIME_PATTERN.matcher(up).matches()) {
                 return Constants.SIMPLE_DATE_FORMAT;
             }
-            if (p2.matcher(up).matches()) {
+            if (DATE_PATTERN.matcher(up).matches()) {
                 return Constants.DATE_FORMAT;
             }
-            if (p3.matcher(up).matches()) {
+            if (TIME_DATE_PATTERN.matcher(up).matches()) {
                 return Constants.DATE_FORMAT_;
             }
         }
@@ -1,7 +1,19 @@
 package lodsve.mvc.commons;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponseWrapper;
 import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 
 /**
  * 封装HttpServletResponse
@@ -9,6 +21,20 @@ import javax.servlet.http.HttpServletResponse;
  * @author sunhao(sunhao.java@gmail.com)
  */
 public class WebOutput {
+    /**
+     * 小于这个大小的文件直接写,不使用容器的sendfile
+     */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    /**
+     * 不使用sendfile时分块输出的缓冲区大小,不随文件大小增长
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private HttpServletRequest request;
     private HttpServletResponse response;
 
     /**
@@ -20,6 +46,25 @@ public class WebOutput {
         this.response = response;
     }
 
+    /**
+     * 构造函数,有request时{@link #sendFile(Path, String, String)}可以支持Range和缓存验证
+     *
+     * @param request
+     * @param response
+     */
+    public WebOutput(HttpServletRequest request, HttpServletResponse response) {
+        this.request = request;
+        this.response = response;
+    }
+
+    public HttpServletRequest getRequest() {
+        return request;
+    }
+
+    public void setRequest(HttpServletRequest request) {
+        this.request = request;
+    }
+
     public HttpServletResponse getResponse() {
         return response;
     }
@@ -55,4 +100,216 @@ public class WebOutput {
             this.response.setContentType(contextType + "; charset=" + charset);
         }
     }
+
+    /**
+     * 输出文件,同{@link #sendFile(Path, String, String)}
+     *
+     * @param file        文件
+     * @param contentType 类型,为空时为application/octet-stream
+     * @param fileName    下载时的文件名,为空时浏览器直接打开
+     * @throws IOException 输出失败
+     */
+    public void sendFile(File file, String contentType, String fileName) throws IOException {
+        sendFile(file.toPath(), contentType, fileName);
+    }
+
+    /**
+     * 输出文件,文件内容不会读到堆内存中.
+     * <p/>
+     * Tomcat开启sendfile时交给容器零拷贝发送,这是唯一的零拷贝方式;否则用一个堆内存缓冲区分块输出.
+     * 有request时支持单个区间的Range(含If-Range)以及If-None-Match/If-Modified-Since缓存验证,命中时返回304
+     *
+     * @param file        文件
+     * @param contentType 类型,为空时为application/octet-stream
+     * @param fileName    下载时的文件名,为空时浏览器直接打开
+     * @throws IOException 输出失败
+     */
+    public void sendFile(Path file, String contentType, String fileName) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!attrs.isRegularFile() || !Files.isReadable(file)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(lastModified / 1000) + "-" + Long.toHexString(length) + "\"";
+
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        response.setHeader("Accept-Ranges", "bytes");
+        if (notModified(etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        long[] range = range(etag, lastModified, length);
+        if (range != null) {
+            if (range.length == 0) {
+                response.setHeader("Content-Range", "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            start = range[0];
+            end = range[1];
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        response.setContentType(contentType == null ? "application/octet-stream" : contentType);
+        response.setHeader("Content-Length", String.valueOf(count));
+        if (fileName != null) {
+            String encoded = URLEncoder.encode(fileName, "UTF-8").replace("+", "%20");
+            response.setHeader("Content-Disposition", "attachment; filename=\"" + asciiFileName(fileName) + "\"; filename*=UTF-8''" + encoded);
+        }
+        if (count == 0 || (request != null && "HEAD".equalsIgnoreCase(request.getMethod()))) {
+            return;
+        }
+
+        if (count >= SENDFILE_MIN_SIZE && request != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)) &&
+                !(response instanceof ServletResponseWrapper)) {
+            request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ServletOutputStream out = response.getOutputStream();
+            copy(channel, start, count, out);
+            out.flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * If-None-Match优先,没有时再看If-Modified-Since
+     */
+    private boolean notModified(String etag, long lastModified) {
+        if (request == null) {
+            return false;
+        }
+
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if ("*".equals(tag) || etag.equals(tag.startsWith("W/") ? tag.substring(2) : tag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long ifModifiedSince = dateHeader("If-Modified-Since");
+        return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * 解析Range请求头,只支持单个区间
+     *
+     * @return null表示返回整个文件,长度为0的数组表示区间无法满足,否则为[start, end]
+     */
+    private long[] range(String etag, long lastModified, long length) {
+        String range = request == null ? null : request.getHeader("Range");
+        if (range == null || !range.startsWith("bytes=") || range.indexOf(',') != -1) {
+            return null;
+        }
+
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange != null) {
+            ifRange = ifRange.trim();
+            boolean matched = ifRange.startsWith("\"") ? etag.equals(ifRange) :
+                    dateHeader("If-Range") / 1000 == lastModified / 1000;
+            if (!matched) {
+                return null;
+            }
+        }
+
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash == -1) {
+            return null;
+        }
+
+        long start;
+        long end;
+        try {
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1).trim());
+                if (suffix <= 0) {
+                    return suffix == 0 ? new long[0] : null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                String last = spec.substring(dash + 1).trim();
+                start = Long.parseLong(spec.substring(0, dash).trim());
+                if (start >= length) {
+                    return new long[0];
+                }
+                end = last.isEmpty() ? length - 1 : Long.parseLong(last);
+                if (end < start) {
+                    return null;
+                }
+                end = Math.min(end, length - 1);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        return start >= length ? new long[0] : new long[]{start, end};
+    }
+
+    private long dateHeader(String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 不支持filename*的旧客户端使用的文件名,非ASCII字符、控制字符、引号和反斜杠替换成下划线
+     */
+    private static String asciiFileName(String fileName) {
+        StringBuilder name = new StringBuilder(fileName.length());
+        for (int i = 0; i < fileName.length(); i++) {
+            char c = fileName.charAt(i);
+            name.append(c < 0x20 || c >= 0x7f || c == '"' || c == '\\' ? '_' : c);
+        }
+
+        return name.toString();
+    }
+
+    private static void copy(FileChannel channel, long position, long count, ServletOutputStream out) throws IOException {
+        // 读到堆内存数组中直接写给输出流,不需要再复制
+        byte[] chunk = new byte[(int) Math.min(CHUNK_SIZE, count)];
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        long end = position + count;
+        while (position < end) {
+            buffer.clear();
+            if (end - position < buffer.capacity()) {
+                buffer.limit((int) (end - position));
+            }
+            int n = channel.read(buffer, position);
+            if (n == -1) {
+                throw new IOException("file is truncated while sending");
+            }
+            position += n;
+
+            out.write(chunk, 0, n);
+        }
+    }
 }
@@ -1,14 +1,13 @@
 package lodsve.mvc.convert;
 
+import lodsve.base.utils.DateFormatter;
 import lodsve.base.utils.StringUtils;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.convert.converter.ConditionalConverter;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.core.convert.converter.ConverterFactory;
 
-import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.regex.Pattern;
 
@@ -20,6 +19,13 @@ import java.util.regex.Pattern;
  * @createTime 2014-12-18 15:28
  */
 public class StringDateConvertFactory implements ConverterFactory<String, Date>, ConditionalConverter {
+    //yyyy-MM-dd hh:mm
+    private static final Pattern DATE_TIME_PATTERN = Pattern.compile("(\\d){2,4}[-](\\d){1,2}[-](\\d){1,2} (\\d){1,2}[:](\\d){1,2}");
+    //yyyy-MM-dd
+    private static final Pattern DATE_PATTERN = Pattern.compile("(\\d){2,4}[-](\\d){1,2}[-](\\d){1,2}");
+    //hh:mm yyyy-MM-dd
+    private static final Pattern TIME_DATE_PATTERN = Pattern.compile("(\\d){1,2}[:](\\d){1,2} (\\d){2,4}[-](\\d){1,2}[-](\\d){1,2}");
+
     @Override
     public boolean matches(TypeDescriptor sourceType, TypeDescriptor targetType) {
         Class<?> clazz = targetType.getType();
@@ -36,9 +42,7 @@ public class StringDateConvertFactory implements ConverterFactory<String, Date>,
         public Date convert(String source) {
             try {
                 String pattern = getDateFormatPattern(source);
-                DateFormat df = new SimpleDateFormat(pattern);
-
-                return df.parse(source);
+                return DateFormatter.getInstance(pattern).parse(source);
             } catch (ParseException e) {
                 e.printStackTrace();
             }
@@ -56,20 +60,13 @@ public class StringDateConvertFactory implements ConverterFactory<String, Date>,
             if (StringUtils.isEmpty(source)) {
                 return "yyyy-MM-dd HH:mm";
             }
-            //yyyy-MM-dd hh:mm
-            Pattern p1 = Pattern.compile("(\\d){2,4}[-](\\d){1,2}[-](\\d){1,2} (\\d){1,2}[:](\\d){1,2}");
-            //yyyy-MM-dd
-            Pattern p2 = Pattern.compile("(\\d){2,4}[-](\\d){1,2}[-](\\d){1,2}");
-            //hh:mm yyyy-MM-dd
-            Pattern p3 = Pattern.compile("(\\d){1,2}[:](\\d){1,2} (\\d){2,4}[-](\\d){1,2}[-](\\d){1,2}");
-
-            if (p1.matcher(source).matches()) {
+            if (DATE_TIME_PATTERN.matcher(source).matches()) {
                 return "yyyy-MM-dd HH:mm";
             }
-            if (p2.matcher(source).matches()) {
+            if (DATE_PATTERN.matcher(source).matches()) {
                 return "yyyy-MM-dd";
             }
-            if (p3.matcher(source).matches()) {
+            if (TIME_DATE_PATTERN.matcher(source).matches()) {
                 return "HH:mm yyyy-MM-dd";
             }
 
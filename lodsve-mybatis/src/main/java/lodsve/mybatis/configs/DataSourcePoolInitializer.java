@@ -0,0 +1,334 @@
+package lodsve.mybatis.configs;
+
+import lodsve.base.utils.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.util.ReflectionUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 数据源连接池初始化.
+ * <p/>
+ * 三种模式:
+ * <ol>
+ * <li>serial: 在创建数据源的线程上依次调用连接池的init方法(默认),没有init方法的连接池(如dbcp)启动时不建立连接</li>
+ * <li>parallel: 数据源创建后提交到有界线程池并发初始化(没有init方法的连接池获取一次连接),容器启动完成时等待全部初始化结束</li>
+ * <li>lazy: 连接池启动时不建立连接,容器启动完成后在后台预热到minIdle个连接</li>
+ * </ol>
+ * 全部初始化完成后输出每个数据源的初始化耗时.
+ *
+ * @author sunhao(sunhao.java@gmail.com)
+ * @version V1.0, 2026-10-18 11:20
+ */
+public class DataSourcePoolInitializer implements BeanPostProcessor, BeanFactoryAware, ApplicationListener<ContextRefreshedEvent>, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(DataSourcePoolInitializer.class);
+
+    public static final String BEAN_NAME = "lodsveDataSourcePoolInitializer";
+    /**
+     * 需要由本类初始化的数据源,BeanDefinition上带有这个属性
+     */
+    public static final String POOL_INIT_ATTRIBUTE = DataSourcePoolInitializer.class.getName() + ".dataSource";
+
+    private Mode mode = Mode.SERIAL;
+    private int threads = 4;
+    private int timeout = 60;
+    private int minIdle;
+
+    private ConfigurableListableBeanFactory beanFactory;
+    private ExecutorService executor;
+
+    private final Map<String, DataSource> lazyDataSources = new TreeMap<>();
+    private final Map<String, Future<?>> futures = new TreeMap<>();
+    private final Map<String, Long> initTimes = Collections.synchronizedMap(new TreeMap<String, Long>());
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private long startTime;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        if (beanFactory instanceof ConfigurableListableBeanFactory) {
+            this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+        }
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (!(bean instanceof DataSource) || !isManaged(beanName)) {
+            return bean;
+        }
+
+        final DataSource dataSource = (DataSource) bean;
+        final String name = beanName;
+        if (startTime == 0) {
+            startTime = System.currentTimeMillis();
+        }
+
+        if (Mode.PARALLEL == mode) {
+            futures.put(name, getExecutor().submit(new Runnable() {
+                @Override
+                public void run() {
+                    initPool(name, dataSource, true);
+                }
+            }));
+        } else if (Mode.LAZY == mode) {
+            lazyDataSources.put(name, dataSource);
+        } else {
+            initPool(name, dataSource, false);
+        }
+
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        // 父子容器时会收到多次
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+
+        if (Mode.PARALLEL == mode) {
+            waitForPools();
+            report();
+        } else if (Mode.LAZY == mode) {
+            warmUpPools();
+        } else {
+            report();
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 每个数据源的初始化耗时(毫秒),lazy模式下为预热耗时
+     *
+     * @return 数据源名称 -> 耗时
+     */
+    public Map<String, Long> getInitTimes() {
+        synchronized (initTimes) {
+            return Collections.unmodifiableMap(new TreeMap<>(initTimes));
+        }
+    }
+
+    private boolean isManaged(String beanName) {
+        return beanFactory != null && beanFactory.containsBeanDefinition(beanName) &&
+                beanFactory.getBeanDefinition(beanName).getAttribute(POOL_INIT_ATTRIBUTE) != null;
+    }
+
+    private void waitForPools() {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeout);
+        for (Map.Entry<String, Future<?>> entry : futures.entrySet()) {
+            try {
+                entry.getValue().get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while initializing datasource '" + entry.getKey() + "'!", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("initialize datasource '" + entry.getKey() + "' error!", e.getCause());
+            } catch (TimeoutException e) {
+                throw new IllegalStateException("initialize datasource '" + entry.getKey() + "' timeout after " + timeout + "s!", e);
+            }
+        }
+
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private void warmUpPools() {
+        if (lazyDataSources.isEmpty()) {
+            return;
+        }
+
+        startTime = System.currentTimeMillis();
+        final AtomicInteger remaining = new AtomicInteger(lazyDataSources.size());
+        for (Map.Entry<String, DataSource> entry : lazyDataSources.entrySet()) {
+            final String name = entry.getKey();
+            final DataSource dataSource = entry.getValue();
+
+            getExecutor().submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        warmUp(name, dataSource);
+                    } catch (RuntimeException e) {
+                        logger.error("warm up datasource '" + name + "' error!", e);
+                    } finally {
+                        if (remaining.decrementAndGet() == 0) {
+                            report();
+                        }
+                    }
+                }
+            });
+        }
+
+        executor.shutdown();
+    }
+
+    /**
+     * 初始化连接池,druid等有init方法的连接池调用init方法
+     *
+     * @param probe 没有init方法时是否获取一次连接(数据库无法连接时启动失败)
+     */
+    private void initPool(String name, DataSource dataSource, boolean probe) {
+        long start = System.currentTimeMillis();
+
+        Method init = ReflectionUtils.findMethod(dataSource.getClass(), "init");
+        if (init != null) {
+            ReflectionUtils.invokeMethod(init, dataSource);
+        } else if (probe) {
+            Connection connection = null;
+            try {
+                connection = dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException("initialize datasource '" + name + "' error!", e);
+            } finally {
+                closeQuietly(connection);
+            }
+        }
+
+        initTimes.put(name, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 同时借出minIdle个连接再归还,使连接池中保持minIdle个空闲连接
+     */
+    private void warmUp(String name, DataSource dataSource) {
+        long start = System.currentTimeMillis();
+
+        List<Connection> connections = new ArrayList<>(minIdle);
+        try {
+            for (int i = 0; i < Math.max(1, minIdle); i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("warm up datasource '" + name + "' error!", e);
+        } finally {
+            for (Connection connection : connections) {
+                closeQuietly(connection);
+            }
+        }
+
+        initTimes.put(name, System.currentTimeMillis() - start);
+    }
+
+    private void report() {
+        if (initTimes.isEmpty() || !logger.isInfoEnabled()) {
+            return;
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append("datasource pool init report(mode: ").append(mode.name().toLowerCase())
+                .append(", total: ").append(System.currentTimeMillis() - startTime).append("ms):");
+        for (Map.Entry<String, Long> entry : getInitTimes().entrySet()) {
+            report.append("\n    ").append(entry.getKey()).append(": ").append(entry.getValue()).append("ms");
+        }
+
+        logger.info(report.toString());
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "lodsve-datasource-init-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        return executor;
+    }
+
+    private void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.warn(e.getMessage(), e);
+        }
+    }
+
+    public void setMode(String mode) {
+        this.mode = Mode.parse(mode);
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    /**
+     * 连接池初始化模式
+     */
+    public enum Mode {
+        SERIAL, PARALLEL, LAZY;
+
+        /**
+         * 解析配置的初始化模式,为空时使用serial
+         *
+         * @param mode 配置的模式
+         * @return 初始化模式
+         * @throws IllegalArgumentException 未知的模式
+         */
+        public static Mode parse(String mode) {
+            if (StringUtils.isBlank(mode)) {
+                return SERIAL;
+            }
+
+            try {
+                return valueOf(mode.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown datasource pool init mode '" + mode + "', must be one of serial, parallel, lazy!");
+            }
+        }
+    }
+}
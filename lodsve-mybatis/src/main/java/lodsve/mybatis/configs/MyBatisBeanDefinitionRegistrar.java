@@ -17,7 +17,6 @@ import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -68,7 +67,13 @@ public class MyBatisBeanDefinitionRegistrar implements ImportBeanDefinitionRegis
     }
 
     private Map<String, BeanDefinition> generateDataSource(String dataSource) {
-        return Collections.singletonMap(dataSource, new RdbmsDataSourceBeanDefinitionFactory(dataSource).build());
+        Map<String, BeanDefinition> beanDefinitions = new HashMap<>();
+        RdbmsDataSourceBeanDefinitionFactory factory = new RdbmsDataSourceBeanDefinitionFactory(dataSource);
+
+        beanDefinitions.put(dataSource, factory.build());
+        beanDefinitions.put(DataSourcePoolInitializer.BEAN_NAME, factory.buildPoolInitializer());
+
+        return beanDefinitions;
     }
 
     private Map<String, BeanDefinition> findFlyWayBeanDefinitions(String migration) {
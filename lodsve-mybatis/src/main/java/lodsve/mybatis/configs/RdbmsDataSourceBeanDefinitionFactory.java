@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 
 /**
@@ -50,7 +51,34 @@ public class RdbmsDataSourceBeanDefinitionFactory {
         setDataSourceProperty(beanDefinitionBuilder);
         setCustomProperties(beanDefinitionBuilder, dataSourceClassName);
 
-        return beanDefinitionBuilder.getBeanDefinition();
+        AbstractBeanDefinition beanDefinition = beanDefinitionBuilder.getBeanDefinition();
+        // 连接池由DataSourcePoolInitializer初始化
+        beanDefinition.setAttribute(DataSourcePoolInitializer.POOL_INIT_ATTRIBUTE, Boolean.TRUE);
+
+        return beanDefinition;
+    }
+
+    /**
+     * 生成连接池初始化器,所有数据源共用一个
+     *
+     * @return 初始化器的BeanDefinition
+     */
+    public BeanDefinition buildPoolInitializer() {
+        RdbmsProperties.InitSetting init = getInitSetting();
+        Integer minIdle = (rdbmsProperties.getCommons() != null ? rdbmsProperties.getCommons().getMinIdle() : null);
+
+        BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(DataSourcePoolInitializer.class);
+        builder.addPropertyValue("mode", init.getMode());
+        builder.addPropertyValue("threads", init.getThreads());
+        builder.addPropertyValue("timeout", init.getTimeout());
+        builder.addPropertyValue("minIdle", minIdle != null ? minIdle : 0);
+
+        return builder.getBeanDefinition();
+    }
+
+    private RdbmsProperties.InitSetting getInitSetting() {
+        RdbmsProperties.InitSetting init = rdbmsProperties.getInit();
+        return init != null ? init : new RdbmsProperties.InitSetting();
     }
 
     private void setDataSourceProperty(BeanDefinitionBuilder dataSourceBuilder) {
@@ -73,6 +101,11 @@ public class RdbmsDataSourceBeanDefinitionFactory {
             properties.putAll(toMap(dbcp));
         }
 
+        if (DataSourcePoolInitializer.Mode.LAZY == DataSourcePoolInitializer.Mode.parse(getInitSetting().getMode())) {
+            // 启动时不建立连接,容器启动完成后再预热
+            properties.put("initialSize", "0");
+        }
+
         setDataSourceProperty(dataSourceBuilder, properties);
     }
 
@@ -105,8 +138,7 @@ public class RdbmsDataSourceBeanDefinitionFactory {
     private void setCustomProperties(BeanDefinitionBuilder beanDefinitionBuilder, String dataSourceClassName) {
         //1.druid
         if ("com.alibaba.druid.pool.DruidDataSource".equals(dataSourceClassName)) {
-            // init method
-            beanDefinitionBuilder.setInitMethodName("init");
+            // init method由DataSourcePoolInitializer按配置的模式调用
             // destroy method
             beanDefinitionBuilder.setDestroyMethodName("close");
         }
@@ -32,6 +32,10 @@ public class RdbmsProperties {
      * 连接信息
      */
     private Map<String, RdbmsConnection> connections;
+    /**
+     * 连接池初始化配置
+     */
+    private InitSetting init;
 
     public String getDataSourceClass() {
         return dataSourceClass;
@@ -73,6 +77,14 @@ public class RdbmsProperties {
         this.connections = connections;
     }
 
+    public InitSetting getInit() {
+        return init;
+    }
+
+    public void setInit(InitSetting init) {
+        this.init = init;
+    }
+
     public static class DataSourceSetting {
         private String driverClassName;
         private Integer initialSize;
@@ -228,4 +240,45 @@ public class RdbmsProperties {
             this.password = password;
         }
     }
+
+    public static class InitSetting {
+        /**
+         * 初始化模式: serial/parallel/lazy
+         *
+         * @see DataSourcePoolInitializer
+         */
+        private String mode = "serial";
+        /**
+         * 并发初始化的线程数
+         */
+        private Integer threads = 4;
+        /**
+         * parallel模式下等待初始化完成的超时时间(秒)
+         */
+        private Integer timeout = 60;
+
+        public String getMode() {
+            return mode;
+        }
+
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+
+        public Integer getThreads() {
+            return threads;
+        }
+
+        public void setThreads(Integer threads) {
+            this.threads = threads;
+        }
+
+        public Integer getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Integer timeout) {
+            this.timeout = timeout;
+        }
+    }
 }
@@ -4,7 +4,10 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import lodsve.base.utils.EncryptUtils;
 import lodsve.base.utils.ListUtils;
 import lodsve.base.utils.StringUtils;
@@ -45,6 +48,10 @@ import org.springframework.util.ClassUtils;
 @Component
 public class InitializeWorkflow implements ApplicationListener<ContextRefreshedEvent> {
     private List<Resource> resources = new ArrayList<>();
+    /**
+     * 启动时并行计算好的流程文件md5
+     */
+    private Map<Resource, String> xmlMd5s = new HashMap<>();
 
     private ContextRefreshedEvent applicationReadyEvent;
 
@@ -56,6 +63,8 @@ public class InitializeWorkflow implements ApplicationListener<ContextRefreshedE
     private FormUrlRepository formUrlRepository;
 
     private void init() throws Exception {
+        computeFileMD5s();
+
         for (Resource resource : resources) {
             Document document = XmlUtils.parseXML(resource.getInputStream());
 
@@ -259,7 +268,33 @@ public class InitializeWorkflow implements ApplicationListener<ContextRefreshedE
 
     }
 
+    private void computeFileMD5s() {
+        Map<File, Resource> files = new LinkedHashMap<>();
+        for (Resource resource : resources) {
+            try {
+                files.put(resource.getFile(), resource);
+            } catch (IOException e) {
+                // 不是文件系统中的文件
+            }
+        }
+
+        try {
+            Map<File, Map<String, String>> digests = EncryptUtils.digestFiles(files.keySet(), Runtime.getRuntime().availableProcessors(), EncryptUtils.MD5);
+            for (Map.Entry<File, Map<String, String>> entry : digests.entrySet()) {
+                xmlMd5s.put(files.get(entry.getKey()), entry.getValue().get(EncryptUtils.MD5));
+            }
+        } catch (IOException e) {
+            // 逐个计算
+            xmlMd5s.clear();
+        }
+    }
+
     private String getFileMD5(Resource resource) {
+        String md5 = xmlMd5s.get(resource);
+        if (md5 != null) {
+            return md5;
+        }
+
         File file;
         try {
             file = resource.getFile();